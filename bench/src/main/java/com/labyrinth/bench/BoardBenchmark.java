@@ -0,0 +1,156 @@
+package com.labyrinth.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.BoardGenerator;
+import com.labyrinth.game.Direction;
+import com.labyrinth.game.IllegalMoveException;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.RotationAngle;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.Tile;
+import com.labyrinth.game.TileType;
+import com.labyrinth.game.modes.TreasureChase;
+
+/**
+ * Benchmarks creating boards and games, and the moves a player makes on them:
+ * inserting the spare tile from each side and moving the token each way. Boards are
+ * created both new and by generating a pooled board again in place.
+ * 
+ * Inserting from the same side again and again is always legal, and keeps the board
+ * changing the same way it does in play. Each side inserts into its own row or
+ * column, so no insert ever puts the last tile back. The token moves are made on a
+ * board of nothing but crossroads, so every move is legal and the token wraps around
+ * the edges of the board forever.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+	
+	@Param({ "7", "15", "31" })
+	public int size;
+	
+	private SettingsManager settings;
+	private TreasureChase game; // inserts are made on this game
+	private TreasureChase open; // token moves are made on this game
+	private Player player;
+	private boolean corner;
+	private BoardGenerator generator;
+	private Board[] pool;
+	private SplittableRandom rand;
+	
+	@Setup
+	public void setup() {
+		settings = new SettingsManager();
+		settings.setColumns(size);
+		settings.setRows(size);
+		settings.setLeaderboard(null);
+		
+		game = new TreasureChase(settings);
+		player = game.getPlayer();
+		
+		open = new TreasureChase(settings);
+		Board board = open.getBoard();
+		
+		for(int i = 0; i < board.getWidth() * board.getHeight(); i++)
+			board.setCell(i, (board.getCell(i) & ~Tile.SHAPE) | Tile.pack(TileType.CROSS, RotationAngle.DEFAULT, false));
+		
+		rand = new SplittableRandom();
+		generator = new BoardGenerator(size, size);
+		pool = generator.createPool(1, rand);
+	}
+	
+	@Benchmark
+	public Board newBoard() {
+		return new Board(size, size);
+	}
+	
+	@Benchmark
+	public Board refillBoard() {
+		generator.refill(pool, rand);
+		return pool[0];
+	}
+	
+	@Benchmark
+	public TreasureChase newTreasureChase() {
+		return new TreasureChase(settings);
+	}
+	
+	@Benchmark
+	public Player insertRowLeft() throws IllegalMoveException {
+		return game.insertRow(2, Direction.LEFT, player);
+	}
+	
+	@Benchmark
+	public Player insertRowRight() throws IllegalMoveException {
+		return game.insertRow(4, Direction.RIGHT, player);
+	}
+	
+	@Benchmark
+	public Player insertColumnTop() throws IllegalMoveException {
+		return game.insertColumn(2, Direction.TOP, player);
+	}
+	
+	@Benchmark
+	public Player insertColumnBottom() throws IllegalMoveException {
+		return game.insertColumn(4, Direction.BOTTOM, player);
+	}
+	
+	@Benchmark
+	public int[] moveTokenUp() throws IllegalMoveException {
+		open.moveTokenUp();
+		return open.getBoard().getTokenPos();
+	}
+	
+	@Benchmark
+	public int[] moveTokenDown() throws IllegalMoveException {
+		open.moveTokenDown();
+		return open.getBoard().getTokenPos();
+	}
+	
+	@Benchmark
+	public int[] moveTokenLeft() throws IllegalMoveException {
+		open.moveTokenLeft();
+		return open.getBoard().getTokenPos();
+	}
+	
+	@Benchmark
+	public int[] moveTokenRight() throws IllegalMoveException {
+		open.moveTokenRight();
+		return open.getBoard().getTokenPos();
+	}
+	
+	/**
+	 * Move the token between opposite corners of the board, the longest goto there is.
+	 */
+	@Benchmark
+	public int moveTokenTo() throws IllegalMoveException {
+		corner = !corner;
+		
+		return corner ? open.moveTokenTo(size, size) : open.moveTokenTo(1, 1);
+	}
+
+}
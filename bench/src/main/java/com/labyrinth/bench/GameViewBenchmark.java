@@ -0,0 +1,80 @@
+package com.labyrinth.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.modes.TreasureChase;
+import com.labyrinth.ui.CharacterElements;
+import com.labyrinth.ui.GameView;
+
+/**
+ * Benchmarks drawing the game board to the console. The board is drawn into a
+ * stream that throws everything away, so only the cost of building the output is
+ * measured and not the terminal's.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameViewBenchmark {
+	
+	@Param({ "7", "15", "31" })
+	public int size;
+	
+	private GameView view;
+	private PrintStream console;
+	
+	@Setup
+	public void setup() {
+		CharacterElements.initCharacters();
+		
+		SettingsManager settings = new SettingsManager();
+		settings.setColumns(size);
+		settings.setRows(size);
+		settings.setLeaderboard(null);
+		
+		view = new GameView(new TreasureChase(settings));
+		
+		console = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+			
+			public void write(byte[] b, int off, int len) {
+			}
+		}));
+	}
+	
+	@TearDown
+	public void tearDown() {
+		System.setOut(console);
+	}
+	
+	@Benchmark
+	public void displayGameBoard() {
+		view.displayGameBoard();
+	}
+
+}
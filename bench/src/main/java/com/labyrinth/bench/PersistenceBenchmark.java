@@ -0,0 +1,150 @@
+package com.labyrinth.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.labyrinth.game.GameManager;
+import com.labyrinth.game.Leaderboard;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.modes.GameMode;
+import com.labyrinth.game.modes.TreasureChase;
+
+/**
+ * Benchmarks saving and loading games, and submitting to and loading leaderboards.
+ * Files are written to the temporary directory and deleted afterwards.
+ * 
+ * A loaded game loads the default leaderboard as the game would, so the benchmarks
+ * should be run from the repository root.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+	
+	/**
+	 * A saved game to load and save over.
+	 */
+	@State(Scope.Thread)
+	public static class SavedGame {
+		
+		private GameManager manager;
+		private GameMode game;
+		private File file;
+		
+		@Setup
+		public void setup() throws IOException {
+			SettingsManager settings = new SettingsManager();
+			settings.setLeaderboard(null);
+			
+			manager = new GameManager();
+			game = new TreasureChase(settings);
+			file = File.createTempFile("labyrinth-save", null);
+			
+			manager.save(file.getPath(), game);
+		}
+		
+		@TearDown
+		public void tearDown() {
+			file.delete();
+		}
+		
+	}
+	
+	/**
+	 * Leaderboard entries to submit, and a leaderboard file of the same size to load.
+	 */
+	@State(Scope.Thread)
+	public static class Entries {
+		
+		@Param({ "10", "100", "1000" })
+		public int entries;
+		
+		private String[] names;
+		private int[] scores;
+		private File file;
+		
+		@Setup
+		public void setup() throws IOException {
+			// Scores in no particular order, so submitting places them all over the board
+			names = new String[entries];
+			scores = new int[entries];
+			
+			for(int i = 0; i < entries; i++) {
+				names[i] = "player" + i;
+				scores[i] = (int) ((i * 2654435761L) % 1000);
+			}
+			
+			file = File.createTempFile("labyrinth-leaderboard", null);
+			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+			
+			for(int i = 0; i < entries; i++) {
+				writer.write(names[i] + " " + i);
+				writer.newLine();
+			}
+			
+			writer.close();
+		}
+		
+		@TearDown
+		public void tearDown() {
+			file.delete();
+		}
+		
+	}
+	
+	@Benchmark
+	public File saveGame(SavedGame saved) throws IOException {
+		saved.manager.save(saved.file.getPath(), saved.game);
+		return saved.file;
+	}
+	
+	@Benchmark
+	public GameMode loadGame(SavedGame saved) throws IOException {
+		return saved.manager.load(saved.file.getPath());
+	}
+	
+	/**
+	 * Fill an empty leaderboard by submitting every entry.
+	 */
+	@Benchmark
+	public Leaderboard submitLeaderboard(Entries entries) {
+		Leaderboard leaderboard = new Leaderboard();
+		
+		for(int i = 0; i < entries.entries; i++)
+			leaderboard.submit(entries.names[i], entries.scores[i]);
+		
+		return leaderboard;
+	}
+	
+	@Benchmark
+	public Leaderboard loadLeaderboard(Entries entries) throws IOException {
+		Leaderboard leaderboard = new Leaderboard();
+		leaderboard.load(entries.file.getPath());
+		
+		return leaderboard;
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.labyrinth.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.labyrinth.game.RotationAngle;
+import com.labyrinth.game.Tile;
+import com.labyrinth.game.TileType;
+import com.labyrinth.ui.CharacterElements;
+
+/**
+ * Benchmarks changing a tile through its setters and getting its string
+ * representation afterwards, which is how the spare tile is turned and drawn.
+ * Each call moves on to the next combination of type, rotation, token and treasure,
+ * so every string representation is asked for in turn.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBenchmark {
+	
+	private static final TileType[] TYPES = { TileType.CORNER, TileType.LINE, TileType.TSHAPE, TileType.CROSS };
+	private static final RotationAngle[] ROTATIONS = RotationAngle.values();
+	
+	private Tile tile;
+	private int next;
+	
+	@Setup
+	public void setup() {
+		CharacterElements.initCharacters();
+		tile = new Tile(TileType.CORNER);
+	}
+	
+	@Benchmark
+	public String[] setAndFormTileString() {
+		int i = next++;
+		
+		tile.setType(TYPES[i & 3]);
+		tile.setRotation(ROTATIONS[(i >> 2) & 3]);
+		tile.setToken((i & 16) != 0);
+		tile.setTreasure((i & 32) != 0);
+		
+		return tile.getTileString();
+	}
+	
+	@Benchmark
+	public String[] rotateAndFormTileString() {
+		tile.setRotation(ROTATIONS[next++ & 3]);
+		
+		return tile.getTileString();
+	}
+
+}
@@ -1,5 +1,10 @@
 package com.labyrinth;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.ai.Evaluator;
 import com.labyrinth.ui.*;
 import com.labyrinth.ui.interfaces.MainMenuUI;
 
@@ -17,13 +22,44 @@ public class Labyrinth {
 	public static final String SETTINGS_FILE = "settings/default";
 	public static final String HELP_FILE = "media/help.txt";
 	public static final String LOAD_PATH = "saves/";
+	public static final String WEIGHTS_FILE = "settings/weights";
 	
+	/**
+	 * Start the game.
+	 * 
+	 * Usage: Labyrinth [seed]
+	 * 
+	 * Given a seed, the same games are played every time (overriding any seed in the
+	 * settings file).
+	 */
 	public static void main(String[] args) {
 		// Set the static characters in accordance to the charset in use
 		CharacterElements.initCharacters();
 		
+		// Use the computer player's tuned weights (see Tuner), if they have been tuned
+		try {
+			Evaluator.setDefault(Evaluator.load(WEIGHTS_FILE));
+		} catch(FileNotFoundException e) {
+			// Not tuned, so use the default weights
+		} catch(IOException e) {
+			System.out.println(e.getMessage());
+			System.out.println("Note: Using default weights instead");
+		}
+		
+		// Load in settings, seeded from the command line if a seed is given
+		SettingsManager settings = new SettingsManager(SETTINGS_FILE);
+		
+		if(args.length > 0) {
+			try {
+				settings.setSeed(Long.parseLong(args[0]));
+			} catch(NumberFormatException e) {
+				System.out.println("Seed must be a whole number: " + args[0]);
+				System.out.println("Note: Using random games instead");
+			}
+		}
+		
 		// Run the main menu
-		MainMenuUI mainMenu = new MainMenuUI();
+		MainMenuUI mainMenu = new MainMenuUI(settings);
 		mainMenu.run();
 	}
 
@@ -1,8 +1,9 @@
 package com.labyrinth.game;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
- * Represents a game board containing tiles.
+ * Represents a game board containing tiles. Each tile is kept as a single packed byte
+ * (see Tile), so a board is one flat array rather than a grid of objects.
  * 
  * @author Gareth Gill
  * @author John Meikle
@@ -11,126 +12,796 @@ import java.util.Random;
  */
 public class Board {
 	
-	private Tile[][] tiles;
+	// Packed tile states (see Tile), indexed by getIndex(column, row)
+	private byte[] cells;
+	private boolean cellsShared;
 	private int width;
 	private int height;
 	private int[] tokenPos;
 	private int[] treasurePos;
-	private Random r;
+	
+	// Whether or not each row/column (indexed by board coordinate) is entirely movable
+	private boolean[] movableRows;
+	private boolean[] movableColumns;
+	private boolean linesShared;
+	
+	// Zobrist hashing: 32 keys per cell (one per shape, plus token and treasure)
+	private static final int KEY_TOKEN = 20;
+	private static final int KEY_TREASURE = 21;
+	private static long[] sharedKeys = new long[0];
+	private static final long[] SPARE_KEYS = makeKeys(-32, 32);
+	private long[] keys;
+	private long hash;
+	
+	// Cells the token can currently reach (a bit set), grown or recalculated when next
+	// needed after a change
+	private long[] reachable;
+	private int reachableCount;
+	private boolean reachableValid;
+	private int growLine = -1; // first cell of a line shifted since, see growReachable()
+	private boolean growRow;
+	private int[] queue;
+	private int[] parent;
 	
 	/**
-	 * Construct a board of a particular size.
+	 * Construct a board of a particular size, with tiles from an unseeded generator.
 	 * 
 	 * @param width The width of the board.
 	 * @param height The height of the board.
 	 */
 	public Board(int width, int height) {
-		this.r = new Random();
-		
-		this.width = width;
-		this.height = height;
-		this.tiles = new Tile[height][width];
-		
-		// Randomise tiles
-		for(int i = 0; i < height; i++) {
-			// Skip far left and far right columns
-			for(int j = 0; j < width; j++) {
-				Tile randomTile;
-				int rNumber = r.nextInt(4); // CORNER, LINE, TSHAPE, CROSS
-				int rotation = r.nextInt(4); // DEFAULT, NINETY, HUNDREDANDEIGHTY, TWOHUNDREDANDSEVENTY
-				TileType[] tileTypes = TileType.values();
-				RotationAngle[] rotationAngles = RotationAngle.values();
-				
-				randomTile = new Tile(tileTypes[rNumber], rotationAngles[rotation]);
-				tiles[i][j] = randomTile;
+		this(width, height, new SplittableRandom());
+	}
+	
+	/**
+	 * Construct a board of a particular size, with tiles chosen by a random number
+	 * generator. The same generator state always gives the same board.
+	 * 
+	 * @param width The width of the board.
+	 * @param height The height of the board.
+	 * @param r The random number generator to choose tiles with.
+	 */
+	public Board(int width, int height, SplittableRandom r) {
+		this(BoardGenerator.getStandard(width, height), r);
+	}
+	
+	/**
+	 * Construct a board with tiles chosen by a board generator, with the token in the
+	 * bottom left corner and no treasure.
+	 * 
+	 * @param generator The generator of boards of this size.
+	 * @param r The random number generator to choose tiles with.
+	 */
+	Board(BoardGenerator generator, SplittableRandom r) {
+		this.width = generator.getWidth();
+		this.height = generator.getHeight();
+		this.cells = new byte[width * height];
+		this.tokenPos = new int[2];
+		this.treasurePos = new int[2];
+		this.keys = getKeys(width * height);
+		this.reachable = new long[(width * height + 63) >> 6];
+		
+		regenerate(generator, r);
+	}
+	
+	/**
+	 * Construct a snapshot of another board. The tile storage is shared between the
+	 * two boards until one of them changes it (copy-on-write).
+	 * 
+	 * @param other The board to take a snapshot of.
+	 */
+	private Board(Board other) {
+		this.width = other.width;
+		this.height = other.height;
+		this.cells = other.cells;
+		this.tokenPos = other.tokenPos.clone();
+		this.treasurePos = other.treasurePos.clone();
+		this.movableRows = other.movableRows;
+		this.movableColumns = other.movableColumns;
+		this.keys = other.keys;
+		this.hash = other.hash;
+		this.reachable = other.reachable.clone();
+		this.reachableCount = other.reachableCount;
+		this.reachableValid = other.reachableValid;
+		this.growLine = other.growLine;
+		this.growRow = other.growRow;
+		
+		// Neither board may write to the shared arrays from now on
+		this.cellsShared = other.cellsShared = true;
+		this.linesShared = other.linesShared = true;
+	}
+	
+	/**
+	 * Take a snapshot of the board. The snapshot is an independent board, but no tiles
+	 * are copied until either board is changed, so it is cheap to take many.
+	 * 
+	 * @return The snapshot of the board.
+	 */
+	public Board snapshot() {
+		return new Board(this);
+	}
+	
+	/**
+	 * Make sure this board has its own copy of the tiles before changing them.
+	 */
+	private void ownCells() {
+		if(cellsShared) {
+			cells = cells.clone();
+			cellsShared = false;
+		}
+	}
+	
+	/**
+	 * Replace every tile with a new random board's, as if the board were new: the token
+	 * goes back to the bottom left corner and the treasure is removed. Snapshots of the
+	 * board are unaffected.
+	 * 
+	 * @param generator The generator of boards of this size.
+	 * @param r The random number generator to choose tiles with.
+	 * @throws IllegalArgumentException When the generator is for another size of board.
+	 */
+	void regenerate(BoardGenerator generator, SplittableRandom r) throws IllegalArgumentException {
+		if(generator.getWidth() != width || generator.getHeight() != height)
+			throw new IllegalArgumentException("Generator is for a " + generator.getWidth() + "x"
+					+ generator.getHeight() + " board, not " + width + "x" + height);
+		
+		// A snapshot may still be reading the old tiles, so write new ones
+		if(cellsShared) {
+			cells = new byte[width * height];
+			cellsShared = false;
+		}
+		
+		generator.generate(cells, r);
+		
+		// Set token position (bottom left corner)
+		tokenPos[0] = 1; // column
+		tokenPos[1] = 1; // row
+		cells[getIndex(tokenPos[0], tokenPos[1])] |= Tile.TOKEN;
+		
+		// Remove the treasure (but don't set)
+		treasurePos[0] = 0;
+		treasurePos[1] = 0;
+		
+		// Every new board can be inserted into the same lines, so share them until one changes
+		movableRows = generator.getMovableRows();
+		movableColumns = generator.getMovableColumns();
+		linesShared = true;
+		
+		hash = computeHash();
+		reachableValid = false;
+	}
+	
+	/**
+	 * Get the shared Zobrist keys, making sure there are enough for a number of cells.
+	 * 
+	 * @param cells The number of cells on the board.
+	 * @return The keys, 32 per cell.
+	 */
+	private static synchronized long[] getKeys(int cells) {
+		if(sharedKeys.length < cells * 32)
+			sharedKeys = makeKeys(0, cells * 32);
+		
+		return sharedKeys;
+	}
+	
+	/**
+	 * Generate a run of pseudo-random Zobrist keys. Each key only depends on its
+	 * number, so the keys are the same for every board and every run.
+	 * 
+	 * @param first The number of the first key.
+	 * @param count The number of keys to generate.
+	 * @return The generated keys.
+	 */
+	private static long[] makeKeys(int first, int count) {
+		long[] k = new long[count];
+		
+		for(int i = 0; i < count; i++) {
+			// SplitMix64 finaliser
+			long z = (first + i) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			k[i] = z ^ (z >>> 31);
+		}
+		
+		return k;
+	}
+	
+	/**
+	 * Get the 64-bit Zobrist hash of the board. It covers the type and rotation of every
+	 * tile along with the token and treasure positions, and is kept up to date as the
+	 * board changes rather than being recomputed.
+	 */
+	public long getHash() {
+		return hash;
+	}
+	
+	/**
+	 * Calculate the Zobrist hash of the board from scratch.
+	 * 
+	 * @return The hash, which should always be equal to getHash().
+	 */
+	public long computeHash() {
+		long h = lineHash(0, 1, cells.length);
+		
+		h ^= positionKey(tokenPos, KEY_TOKEN);
+		h ^= positionKey(treasurePos, KEY_TREASURE);
+		
+		return h;
+	}
+	
+	/**
+	 * Get the Zobrist key of a spare tile, for combining with the board hash.
+	 * 
+	 * @param state The packed state of the spare tile.
+	 * @return The key of the spare tile's type and rotation.
+	 */
+	public static long getSpareKey(int state) {
+		return SPARE_KEYS[state & Tile.SHAPE];
+	}
+	
+	/**
+	 * Combine the shape keys of a run of cells.
+	 * 
+	 * @param start The index of the first cell.
+	 * @param stride The distance between cells.
+	 * @param count The number of cells.
+	 * @return The combined keys.
+	 */
+	private long lineHash(int start, int stride, int count) {
+		long h = 0;
+		
+		for(int i = 0, index = start; i < count; i++, index += stride)
+			h ^= keys[(index << 5) | (cells[index] & Tile.SHAPE)];
+		
+		return h;
+	}
+	
+	/**
+	 * Get the key of the token or treasure being at a position (0 if not on the board).
+	 */
+	private long positionKey(int[] pos, int feature) {
+		if(pos[0] < 1 || pos[1] < 1)
+			return 0;
+		
+		return keys[(getIndex(pos[0], pos[1]) << 5) | feature];
+	}
+	
+	/**
+	 * Get the index of the cell at the specified location. No range checking
+	 * is performed.
+	 * 
+	 * @param column The column coordinate of the cell.
+	 * @param row The row coordinate of the cell.
+	 * @return The index of the cell within the packed storage.
+	 */
+	public int getIndex(int column, int row) {
+		return getInternalRow(row) * width + getInternalColumn(column);
+	}
+	
+	/**
+	 * Get the packed state (see Tile) of the cell at the specified index.
+	 * 
+	 * @param index The index of the cell.
+	 * @return The packed tile state.
+	 */
+	public int getCell(int index) {
+		return cells[index] & 0xFF;
+	}
+	
+	/**
+	 * Set the packed state (see Tile) of the cell at the specified index.
+	 * 
+	 * @param index The index of the cell.
+	 * @param state The new packed tile state.
+	 */
+	public void setCell(int index, int state) {
+		ownCells();
+		
+		int old = cells[index];
+		cells[index] = (byte) state;
+		
+		// Swap the old tile shape out of the hash and the new one in
+		hash ^= keys[(index << 5) | (old & Tile.SHAPE)] ^ keys[(index << 5) | (state & Tile.SHAPE)];
+		
+		if(((old ^ state) & Tile.SHAPE) != 0 && reachableValid) {
+			// Connectivity changed, which only matters on or next to the reachable cells
+			if(growLine >= 0 || inReachable(index) || inReachable(getNeighbour(index, Tile.NORTH)) ||
+					inReachable(getNeighbour(index, Tile.EAST)) ||
+					inReachable(getNeighbour(index, Tile.SOUTH)) ||
+					inReachable(getNeighbour(index, Tile.WEST)))
+				reachableValid = false;
+		}
+		
+		if(((old ^ state) & Tile.MOVABLE) != 0) {
+			if(linesShared) {
+				movableRows = movableRows.clone();
+				movableColumns = movableColumns.clone();
+				linesShared = false;
 			}
+			
+			// Movability changed, so the lines through this cell need rechecking
+			updateMovableRow(height - index / width);
+			updateMovableColumn(index % width + 1);
 		}
+	}
+	
+	/**
+	 * Recalculate whether or not every tile on a row is movable.
+	 * 
+	 * @param row The row to recalculate.
+	 */
+	private void updateMovableRow(int row) {
+		int base = getIndex(1, row);
+		boolean movable = true;
+		
+		for(int j = 0; j < width && movable; j++)
+			movable = (cells[base + j] & Tile.MOVABLE) != 0;
+		
+		movableRows[row] = movable;
+	}
+	
+	/**
+	 * Recalculate whether or not every tile in a column is movable.
+	 * 
+	 * @param column The column to recalculate.
+	 */
+	private void updateMovableColumn(int column) {
+		int j = getInternalColumn(column);
+		boolean movable = true;
 		
-		// Set immovable tiles (i,j) where i and j are odd
-		for(int i = 0; i < height; i++) {
-			for(int j = 0; j < width; j++) {
-				// Internally board starts at 0, but to the user it starts at 1
-				// so we need to perform odd calculations on what the user sees
-				if(((i + 1) % 2 != 0) && ((j + 1) % 2 != 0)) {
-					// Found an odd combination
-					tiles[i][j].setMovable(false);
-					
-					// Check if not on the edge (must be cross in this case)
-					if(i != 0 && i != height - 1 && j != 0 && j != width - 1) {
-						tiles[i][j].setType(TileType.CROSS);
-					}
-					else {
-						// Tile is on the edge, determine which edge
-						if(i == 0 && j == 0) {
-							// Top left hand corner
-							tiles[i][j] = new Tile(TileType.CORNER, RotationAngle.DEFAULT, false);
-						}
-						else if(i == 0 && j == width - 1) {
-							// Top right hand corner
-							tiles[i][j] = new Tile(TileType.CORNER, RotationAngle.NINETY, false);
-						}
-						else if(i == height - 1 && j == width - 1) {
-							// Bottom right hand corner
-							tiles[i][j] = new Tile(TileType.CORNER, RotationAngle.HUNDREDANDEIGHTY, false);
-						}
-						else if(i == height - 1 && j == 0) {
-							// Bottom left hand corner
-							tiles[i][j] = new Tile(TileType.CORNER, RotationAngle.TWOHUNDREDANDSEVENTY, false);
-						}
-						else if(i == 0) {
-							// Top most row
-							// Set to either horizontal line or horizontal T-shape
-							int type = r.nextInt(2); // LINE, TSHAPE
-							
-							if(type == 0)
-								tiles[i][j] = new Tile(TileType.LINE, RotationAngle.NINETY, false);
-							else
-								tiles[i][j] = new Tile(TileType.TSHAPE, RotationAngle.NINETY, false);
-						}
-						else if(i == height - 1) {
-							// Bottom most row
-							// Set to either horizontal line or horizontal T-shape
-							int type = r.nextInt(2); // LINE, TSHAPE
-							
-							if(type == 0)
-								tiles[i][j] = new Tile(TileType.LINE, RotationAngle.NINETY, false);
-							else
-								tiles[i][j] = new Tile(TileType.TSHAPE, RotationAngle.TWOHUNDREDANDSEVENTY, false);
-						}
-						else if(j == 0) {
-							// Left most column
-							// Set to either horizontal line or horizontal T-shape
-							int type = r.nextInt(2); // LINE, TSHAPE
-							
-							if(type == 0)
-								tiles[i][j] = new Tile(TileType.LINE, RotationAngle.DEFAULT, false);
-							else
-								tiles[i][j] = new Tile(TileType.TSHAPE, RotationAngle.DEFAULT, false);
-						}
-						else if(j == width - 1) {
-							// Right most column
-							// Set to either horizontal line or horizontal T-shape
-							int type = r.nextInt(2); // LINE, TSHAPE
-							
-							if(type == 0)
-								tiles[i][j] = new Tile(TileType.LINE, RotationAngle.DEFAULT, false);
-							else
-								tiles[i][j] = new Tile(TileType.TSHAPE, RotationAngle.HUNDREDANDEIGHTY, false);
-						}
-					}
+		for(int i = 0; i < height && movable; i++)
+			movable = (cells[i * width + j] & Tile.MOVABLE) != 0;
+		
+		movableColumns[column] = movable;
+	}
+	
+	/**
+	 * Check whether or not a tile can be inserted into the specified row.
+	 * 
+	 * @param row The row to check.
+	 * @return True if the row is within range and contains no immovable tiles.
+	 */
+	public boolean isMovableRow(int row) {
+		return row >= 1 && row <= height && movableRows[row];
+	}
+	
+	/**
+	 * Check whether or not a tile can be inserted into the specified column.
+	 * 
+	 * @param column The column to check.
+	 * @return True if the column is within range and contains no immovable tiles.
+	 */
+	public boolean isMovableColumn(int column) {
+		return column >= 1 && column <= width && movableColumns[column];
+	}
+	
+	/**
+	 * Shift a row along by one tile, inserting a new tile at one end. The tile pushed
+	 * off the other end is returned. If it carried the token or treasure, these are
+	 * passed onto the inserted tile (i.e. they wrap around the board). The row is not
+	 * checked, see isMovableRow().
+	 * 
+	 * @param row The row to shift.
+	 * @param direc The side to insert from, either LEFT or RIGHT.
+	 * @param state The packed state of the tile to insert.
+	 * @return The packed state of the tile that fell off, without token or treasure.
+	 * @throws IllegalArgumentException If the direction is not LEFT or RIGHT.
+	 */
+	public int shiftRow(int row, Direction direc, int state) throws IllegalArgumentException {
+		int base = getIndex(1, row);
+		int fallen;
+		
+		ownCells();
+		hash ^= lineHash(base, 1, width) ^ positionKey(tokenPos, KEY_TOKEN) ^ positionKey(treasurePos, KEY_TREASURE);
+		
+		// Shifting a line clear of the reachable set can only add to it, see growReachable()
+		boolean grow = reachableValid && growLine < 0 && !holdsReachable(base, 1, width);
+		
+		if(!grow)
+			reachableValid = false;
+		
+		if(direc == Direction.LEFT) {
+			// Push tiles right, last tile falls off
+			fallen = cells[base + width - 1] & 0xFF;
+			System.arraycopy(cells, base, cells, base + 1, width - 1);
+			cells[base] = (byte) carry(fallen, state);
+		}
+		else if(direc == Direction.RIGHT) {
+			// Push tiles left, first tile falls off
+			fallen = cells[base] & 0xFF;
+			System.arraycopy(cells, base + 1, cells, base, width - 1);
+			cells[base + width - 1] = (byte) carry(fallen, state);
+		}
+		else {
+			throw new IllegalArgumentException("Rows can only be shifted from the left or right");
+		}
+		
+		// Everything on the row moved one column along (wrapping around)
+		int step = (direc == Direction.LEFT) ? 1 : width - 1;
+		
+		if(tokenPos[1] == row)
+			tokenPos[0] = (tokenPos[0] - 1 + step) % width + 1;
+		if(treasurePos[1] == row)
+			treasurePos[0] = (treasurePos[0] - 1 + step) % width + 1;
+		
+		hash ^= lineHash(base, 1, width) ^ positionKey(tokenPos, KEY_TOKEN) ^ positionKey(treasurePos, KEY_TREASURE);
+		
+		if(grow) {
+			growLine = base;
+			growRow = true;
+		}
+		
+		return fallen & ~(Tile.TOKEN | Tile.TREASURE);
+	}
+	
+	/**
+	 * Shift a column along by one tile, inserting a new tile at one end. The tile pushed
+	 * off the other end is returned. If it carried the token or treasure, these are
+	 * passed onto the inserted tile (i.e. they wrap around the board). The column is
+	 * not checked, see isMovableColumn().
+	 * 
+	 * @param column The column to shift.
+	 * @param direc The side to insert from, either TOP or BOTTOM.
+	 * @param state The packed state of the tile to insert.
+	 * @return The packed state of the tile that fell off, without token or treasure.
+	 * @throws IllegalArgumentException If the direction is not TOP or BOTTOM.
+	 */
+	public int shiftColumn(int column, Direction direc, int state) throws IllegalArgumentException {
+		int j = getInternalColumn(column);
+		int last = (height - 1) * width + j;
+		int fallen;
+		
+		ownCells();
+		hash ^= lineHash(j, width, height) ^ positionKey(tokenPos, KEY_TOKEN) ^ positionKey(treasurePos, KEY_TREASURE);
+		
+		// Shifting a line clear of the reachable set can only add to it, see growReachable()
+		boolean grow = reachableValid && growLine < 0 && !holdsReachable(j, width, height);
+		
+		if(!grow)
+			reachableValid = false;
+		
+		if(direc == Direction.BOTTOM) {
+			// Push tiles up, top tile falls off
+			fallen = cells[j] & 0xFF;
+			
+			for(int i = j; i < last; i += width)
+				cells[i] = cells[i + width];
+			
+			cells[last] = (byte) carry(fallen, state);
+		}
+		else if(direc == Direction.TOP) {
+			// Push tiles down, bottom tile falls off
+			fallen = cells[last] & 0xFF;
+			
+			for(int i = last; i > j; i -= width)
+				cells[i] = cells[i - width];
+			
+			cells[j] = (byte) carry(fallen, state);
+		}
+		else {
+			throw new IllegalArgumentException("Columns can only be shifted from the top or bottom");
+		}
+		
+		// Everything in the column moved one row along (wrapping around)
+		int step = (direc == Direction.BOTTOM) ? 1 : height - 1;
+		
+		if(tokenPos[0] == column)
+			tokenPos[1] = (tokenPos[1] - 1 + step) % height + 1;
+		if(treasurePos[0] == column)
+			treasurePos[1] = (treasurePos[1] - 1 + step) % height + 1;
+		
+		hash ^= lineHash(j, width, height) ^ positionKey(tokenPos, KEY_TOKEN) ^ positionKey(treasurePos, KEY_TREASURE);
+		
+		if(grow) {
+			growLine = j;
+			growRow = false;
+		}
+		
+		return fallen & ~(Tile.TOKEN | Tile.TREASURE);
+	}
+	
+	/**
+	 * Get the index of the neighbouring cell in a direction. The board wraps around
+	 * at the edges, so every cell has four neighbours.
+	 * 
+	 * @param index The index of the cell.
+	 * @param direction The direction (Tile.NORTH, EAST, SOUTH or WEST).
+	 * @return The index of the neighbouring cell.
+	 * @throws IllegalArgumentException If the direction is not a single direction.
+	 */
+	public int getNeighbour(int index, int direction) throws IllegalArgumentException {
+		switch(direction) {
+		case Tile.NORTH:
+			return index >= width ? index - width : index + cells.length - width;
+		case Tile.SOUTH:
+			return index < cells.length - width ? index + width : index - cells.length + width;
+		case Tile.EAST:
+			return (index % width) != width - 1 ? index + 1 : index - width + 1;
+		case Tile.WEST:
+			return (index % width) != 0 ? index - 1 : index + width - 1;
+		default:
+			throw new IllegalArgumentException("Invalid direction specified");
+		}
+	}
+	
+	/**
+	 * Check whether or not the token could pass from a cell to its neighbour in a
+	 * direction, i.e. both tiles are open on the shared edge.
+	 * 
+	 * @param index The index of the cell to move from.
+	 * @param direction The direction to move in (Tile.NORTH, EAST, SOUTH or WEST).
+	 * @return True if there is no wall in the way.
+	 */
+	public boolean canMove(int index, int direction) {
+		if((Tile.connectionsOf(cells[index]) & direction) == 0)
+			return false;
+		
+		return (Tile.connectionsOf(cells[getNeighbour(index, direction)]) & opposite(direction)) != 0;
+	}
+	
+	/**
+	 * Get the opposite of a direction (e.g. Tile.NORTH gives Tile.SOUTH).
+	 */
+	public static int opposite(int direction) {
+		return ((direction << 2) | (direction >> 2)) & 0xF;
+	}
+	
+	/**
+	 * Get the column (board coordinate) of a cell index.
+	 */
+	public int getColumn(int index) {
+		return index % width + 1;
+	}
+	
+	/**
+	 * Get the row (board coordinate) of a cell index.
+	 */
+	public int getRow(int index) {
+		return height - index / width;
+	}
+	
+	/**
+	 * Check whether or not the token can currently reach a cell by moving, without
+	 * any tiles being inserted.
+	 * 
+	 * @param column The column of the cell.
+	 * @param row The row of the cell.
+	 * @return True if the cell is reachable (the token's own cell always is).
+	 */
+	public boolean isReachable(int column, int row) {
+		updateReachable();
+		
+		return inReachable(getIndex(column, row));
+	}
+	
+	/**
+	 * Get the number of cells the token can currently reach, including its own.
+	 */
+	public int getReachableCount() {
+		updateReachable();
+		
+		return reachableCount;
+	}
+	
+	/**
+	 * Get the cells the token can currently reach as a bit set, where bit (index % 64)
+	 * of word (index / 64) is set if the cell at that index is reachable. The array is
+	 * reused, so it must not be modified or kept.
+	 */
+	public long[] getReachable() {
+		updateReachable();
+		
+		return reachable;
+	}
+	
+	/**
+	 * Find the shortest path for the token to a cell, using the same moves as the
+	 * token (including wrapping around the edges). No objects are allocated.
+	 * 
+	 * @param column The column of the destination.
+	 * @param row The row of the destination.
+	 * @param path If not null, filled with the direction (Tile.NORTH, EAST, SOUTH or
+	 * WEST) of each step in order. Must have room for one step per cell.
+	 * @return The number of steps in the path, or -1 if the cell can't be reached.
+	 */
+	public int findPath(int column, int row, int[] path) {
+		int target = getIndex(column, row);
+		
+		if(!isReachable(column, row))
+			return -1;
+		
+		if(parent == null)
+			parent = new int[cells.length];
+		if(queue == null)
+			queue = new int[cells.length];
+		
+		// Breadth first search from the token, parent[] holds the direction taken
+		// into each cell (0 if not yet visited)
+		for(int i = 0; i < parent.length; i++)
+			parent[i] = 0;
+		
+		int start = getIndex(tokenPos[0], tokenPos[1]);
+		int head = 0, tail = 0;
+		
+		parent[start] = -1;
+		queue[tail++] = start;
+		
+		while(head < tail && parent[target] == 0) {
+			int index = queue[head++];
+			
+			for(int direction = Tile.NORTH; direction <= Tile.WEST; direction <<= 1) {
+				if(!canMove(index, direction))
+					continue;
+				
+				int next = getNeighbour(index, direction);
+				
+				if(parent[next] == 0) {
+					parent[next] = direction;
+					queue[tail++] = next;
 				}
 			}
 		}
 		
-		// Set token position (bottom left corner)
-		this.tokenPos = new int[2];
-		this.tokenPos[0] = 1; // column
-		this.tokenPos[1] = 1; // row
+		// Walk back from the target to count (and record) the steps
+		int steps = 0;
 		
-		tiles[getInternalRow(tokenPos[1])][getInternalColumn(tokenPos[0])].setToken(true);
+		for(int i = target; i != start; i = getNeighbour(i, opposite(parent[i])))
+			steps++;
 		
-		// Initialise treasure (but don't set)
-		this.treasurePos = new int[2];
+		if(path != null) {
+			int k = steps;
+			
+			for(int i = target; i != start; i = getNeighbour(i, opposite(parent[i])))
+				path[--k] = parent[i];
+		}
+		
+		return steps;
+	}
+	
+	/**
+	 * Check the cached reachable set for a cell without recalculating it.
+	 */
+	private boolean inReachable(int index) {
+		return (reachable[index >> 6] & (1L << index)) != 0;
+	}
+	
+	/**
+	 * Check whether or not a line holds a reachable cell. Shifting the line gives
+	 * those cells new tiles, which may cut the token off from cells it could reach,
+	 * so the set must be recalculated. Otherwise the set can only grow.
+	 * 
+	 * @param start The index of the first cell of the line.
+	 * @param stride The distance between cells on the line.
+	 * @param count The number of cells on the line.
+	 * @return True if the line holds a reachable cell.
+	 */
+	private boolean holdsReachable(int start, int stride, int count) {
+		for(int i = 0; i < count; i++) {
+			if(inReachable(start + i * stride))
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Grow the reachable set after shifting a line that held no reachable cells (the
+	 * line growLine starts). Only the cells on the line have new tiles, so every
+	 * reachable cell still is, and the token can only reach further through a
+	 * reachable cell next to the line opening onto it. The set is searched outward
+	 * from those, so it isn't recalculated.
+	 */
+	private void growReachable() {
+		int stride = growRow ? 1 : width;
+		int count = growRow ? width : height;
+		
+		// The lines next to this one, and the direction from each into this one
+		int toAfter = growRow ? Tile.SOUTH : Tile.EAST;
+		int toBefore = opposite(toAfter);
+		int before = getNeighbour(growLine, toBefore);
+		int after = getNeighbour(growLine, toAfter);
+		int head = 0, tail = 0;
+		
+		if(queue == null)
+			queue = new int[cells.length];
+		
+		for(int i = 0; i < count; i++) {
+			int offset = i * stride;
+			
+			if(inReachable(before + offset))
+				tail = reach(before + offset, toAfter, tail);
+			if(inReachable(after + offset))
+				tail = reach(after + offset, toBefore, tail);
+		}
+		
+		// Breadth first search on from the cells that joined
+		while(head < tail) {
+			int index = queue[head++];
+			tail = reach(index, Tile.NORTH | Tile.EAST | Tile.SOUTH | Tile.WEST, tail);
+		}
+		
+		growLine = -1;
+	}
+	
+	/**
+	 * Add the unreachable neighbours of a cell the token can move to in any of a
+	 * set of directions to the reachable set, and to the search queue.
+	 * 
+	 * @param index The index of the cell.
+	 * @param directions The directions to try, as Tile direction flags.
+	 * @param tail The end of the search queue.
+	 * @return The new end of the search queue.
+	 */
+	private int reach(int index, int directions, int tail) {
+		for(int direction = Tile.NORTH; direction <= Tile.WEST; direction <<= 1) {
+			if((directions & direction) == 0 || !canMove(index, direction))
+				continue;
+			
+			int next = getNeighbour(index, direction);
+			
+			if(!inReachable(next)) {
+				reachable[next >> 6] |= 1L << next;
+				reachableCount++;
+				queue[tail++] = next;
+			}
+		}
+		
+		return tail;
+	}
+	
+	/**
+	 * Bring the reachable set up to date: grow it if a line was shifted next to it,
+	 * or recalculate it with a breadth first search from the token if the cached set
+	 * is no longer valid.
+	 */
+	private void updateReachable() {
+		if(reachableValid) {
+			if(growLine >= 0)
+				growReachable();
+			
+			return;
+		}
+		
+		for(int i = 0; i < reachable.length; i++)
+			reachable[i] = 0;
+		
+		if(queue == null)
+			queue = new int[cells.length];
+		
+		int start = getIndex(tokenPos[0], tokenPos[1]);
+		int head = 0, tail = 0;
+		
+		reachable[start >> 6] |= 1L << start;
+		queue[tail++] = start;
+		
+		while(head < tail) {
+			int index = queue[head++];
+			
+			for(int direction = Tile.NORTH; direction <= Tile.WEST; direction <<= 1) {
+				if(!canMove(index, direction))
+					continue;
+				
+				int next = getNeighbour(index, direction);
+				
+				if(!inReachable(next)) {
+					reachable[next >> 6] |= 1L << next;
+					queue[tail++] = next;
+				}
+			}
+		}
+		
+		reachableCount = tail;
+		reachableValid = true;
+		growLine = -1;
+	}
+	
+	/**
+	 * Form the state of a tile being inserted into a line, taking the token and treasure
+	 * from the tile falling off the line.
+	 */
+	private static int carry(int fallen, int inserted) {
+		return (inserted & ~(Tile.TOKEN | Tile.TREASURE)) | Tile.MOVABLE | 
+				(fallen & (Tile.TOKEN | Tile.TREASURE));
 	}
 	
 	/**
@@ -149,12 +820,13 @@ public class Board {
 			throw new IllegalArgumentException("Specified row not within range");
 		}
 		
-		// Calculate internal coordinates and return corresponding tile
-		return tiles[getInternalRow(row)][getInternalColumn(column)];
+		// Calculate internal coordinates and return a view of the corresponding cell
+		return new Tile(this, getIndex(column, row));
 	}
 	
 	/**
-	 * Set the tile at the specified location to a new tile.
+	 * Set the tile at the specified location to a new tile. The state of the new tile
+	 * is copied onto the board, so later changes to it are not reflected.
 	 * 
 	 * @param column The column coordinate of the tile.
 	 * @param row The row coordinate of the tile.
@@ -169,8 +841,8 @@ public class Board {
 			throw new IllegalArgumentException("Specified row not within range");
 		}
 		
-		// Calculate internal coordinates and return corresponding tile
-		tiles[getInternalRow(row)][getInternalColumn(column)] = newTile;
+		// Calculate internal coordinates and copy the new tile state in
+		setCell(getIndex(column, row), newTile.getState());
 	}
 	
 	/**
@@ -190,8 +862,28 @@ public class Board {
 	 * @param row The row number of the token.
 	 */
 	public void setTokenPos(int column, int row) {
+		hash ^= positionKey(tokenPos, KEY_TOKEN);
 		tokenPos[0] = column;
 		tokenPos[1] = row;
+		hash ^= positionKey(tokenPos, KEY_TOKEN);
+		
+		// Moving within the reachable set leaves it unchanged
+		if(reachableValid && (growLine >= 0 || !inReachable(getIndex(column, row))))
+			reachableValid = false;
+	}
+	
+	/**
+	 * Move the token to a new board coordinate, updating both the token position
+	 * and the token flag of the old and new cells.
+	 * 
+	 * @param column The new column number of the token.
+	 * @param row The new row number of the token.
+	 */
+	public void moveToken(int column, int row) {
+		ownCells();
+		cells[getIndex(tokenPos[0], tokenPos[1])] &= ~Tile.TOKEN;
+		setTokenPos(column, row);
+		cells[getIndex(column, row)] |= Tile.TOKEN;
 	}
 	
 	/**
@@ -211,8 +903,10 @@ public class Board {
 	 * @param row The row number of the treasure.
 	 */
 	public void setTreasurePos(int column, int row) {
+		hash ^= positionKey(treasurePos, KEY_TREASURE);
 		treasurePos[0] = column;
 		treasurePos[1] = row;
+		hash ^= positionKey(treasurePos, KEY_TREASURE);
 	}
 	
 	/**
@@ -252,9 +946,15 @@ public class Board {
 	/**
 	 * Get all the tiles on the board.
 	 * 
-	 * @return All the tiles on the board in the form of an array.
+	 * @return Views of all the tiles on the board in the form of an array.
 	 */
 	public Tile[][] getTiles() {
+		Tile[][] tiles = new Tile[height][width];
+		
+		for(int i = 0; i < height; i++)
+			for(int j = 0; j < width; j++)
+				tiles[i][j] = new Tile(this, i * width + j);
+		
 		return tiles;
 	}
 
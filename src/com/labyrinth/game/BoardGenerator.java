@@ -0,0 +1,400 @@
+package com.labyrinth.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates random boards of one size quickly, writing packed tiles (see Tile)
+ * straight into a board's storage.
+ * 
+ * Everything that is the same on every board is worked out once, when the generator
+ * is made: the immovable tiles, which cells are movable, and which rows and columns
+ * tiles can be inserted into (shared by every board until one changes). Each board
+ * then takes a byte of a random long for each movable tile, looked up in a table of
+ * tiles, and a bit for each immovable edge tile (a line or a T-shape). Boards can
+ * also be generated again in place, so a pool of boards can be refilled without
+ * allocating anything.
+ * 
+ * The tile type of the movable tiles is chosen according to a set of weights, with
+ * every rotation equally likely. The weights are rounded to 64ths, though a type
+ * with a weight above 0 always gets at least one 64th.
+ * 
+ * A generator never changes once made, so it can be shared by any number of threads.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class BoardGenerator {
+	
+	// The weights of CORNER, LINE, TSHAPE and CROSS, equal as they have always been
+	private static final int[] STANDARD_WEIGHTS = { 1, 1, 1, 1 };
+	private static final TileType[] TYPES = { TileType.CORNER, TileType.LINE, TileType.TSHAPE, TileType.CROSS };
+	private static final int SLOTS = 64; // type slots in the tile table, 4 rotations each
+	
+	private static volatile BoardGenerator standard; // the last standard generator asked for
+	
+	private int width;
+	private int height;
+	private int[] weights;
+	private byte[] template; // the immovable tiles, with lines on the edges
+	private int[] movable; // indices of the movable cells
+	private int[] edges; // indices of the immovable edge cells that may be T-shapes
+	private byte[] edgeTShapes; // the T-shape for each of those cells
+	private byte[] tiles; // the movable tile for each random byte
+	private boolean[] movableRows;
+	private boolean[] movableColumns;
+	
+	/**
+	 * Construct a generator of boards of a particular size, with the standard tiles.
+	 * 
+	 * @param width The width of the boards.
+	 * @param height The height of the boards.
+	 */
+	public BoardGenerator(int width, int height) {
+		this(width, height, STANDARD_WEIGHTS);
+	}
+	
+	/**
+	 * Construct a generator of boards of a particular size, with the movable tile
+	 * types chosen according to a set of weights.
+	 * 
+	 * @param width The width of the boards.
+	 * @param height The height of the boards.
+	 * @param weights The relative chance of each of CORNER, LINE, TSHAPE and CROSS.
+	 * @throws IllegalArgumentException When there aren't four weights, one is
+	 * negative or they are all 0.
+	 */
+	public BoardGenerator(int width, int height, int[] weights) throws IllegalArgumentException {
+		checkWeights(weights);
+		
+		this.width = width;
+		this.height = height;
+		this.weights = weights.clone();
+		this.tiles = makeTiles(weights);
+		this.template = new byte[width * height];
+		this.movableRows = new boolean[height + 1];
+		this.movableColumns = new boolean[width + 1];
+		
+		int movableCount = 0, edgeCount = 0;
+		
+		// Internally the board starts at 0, so immovable tiles are at even coordinates
+		for(int i = 0; i < height; i++) {
+			for(int j = 0; j < width; j++) {
+				if(i % 2 != 0 || j % 2 != 0)
+					movableCount++;
+				else if(isEdge(i, j) && !isCorner(i, j))
+					edgeCount++;
+			}
+		}
+		
+		this.movable = new int[movableCount];
+		this.edges = new int[edgeCount];
+		this.edgeTShapes = new byte[edgeCount];
+		movableCount = edgeCount = 0;
+		
+		for(int i = 0; i < height; i++) {
+			for(int j = 0; j < width; j++) {
+				int index = i * width + j;
+				
+				if(i % 2 != 0 || j % 2 != 0) {
+					movable[movableCount++] = index;
+				} else {
+					template[index] = (byte) fixedTile(i, j, true);
+					
+					if(isEdge(i, j) && !isCorner(i, j)) {
+						edges[edgeCount] = index;
+						edgeTShapes[edgeCount++] = (byte) fixedTile(i, j, false);
+					}
+				}
+			}
+		}
+		
+		// Lines are movable where no immovable tiles are, i.e. the even rows and columns
+		for(int row = 1; row <= height; row++)
+			movableRows[row] = (height - row) % 2 != 0;
+		for(int column = 1; column <= width; column++)
+			movableColumns[column] = (column - 1) % 2 != 0;
+	}
+	
+	/**
+	 * Get a generator of boards of a particular size with the standard tiles. The
+	 * last generator asked for is kept, so asking for the same size again (as every
+	 * new game does) costs nothing.
+	 * 
+	 * @param width The width of the boards.
+	 * @param height The height of the boards.
+	 * @return The generator.
+	 */
+	public static BoardGenerator getStandard(int width, int height) {
+		BoardGenerator generator = standard;
+		
+		if(generator == null || generator.width != width || generator.height != height)
+			standard = generator = new BoardGenerator(width, height);
+		
+		return generator;
+	}
+	
+	/**
+	 * Get the standard weights of CORNER, LINE, TSHAPE and CROSS, which are all equal.
+	 */
+	public static int[] getStandardWeights() {
+		return STANDARD_WEIGHTS.clone();
+	}
+	
+	/**
+	 * Check that tile weights can be generated with.
+	 * 
+	 * @param weights The relative chance of each of CORNER, LINE, TSHAPE and CROSS.
+	 * @throws IllegalArgumentException When there aren't four weights, one is
+	 * negative or they are all 0.
+	 */
+	public static void checkWeights(int[] weights) throws IllegalArgumentException {
+		long total = 0;
+		
+		if(weights.length != TYPES.length)
+			throw new IllegalArgumentException("There must be a weight for each of CORNER, LINE, TSHAPE and CROSS");
+		
+		for(int weight : weights) {
+			if(weight < 0)
+				throw new IllegalArgumentException("Tile weights must not be negative");
+			
+			total += weight;
+		}
+		
+		if(total == 0)
+			throw new IllegalArgumentException("At least one tile weight must be more than 0");
+	}
+	
+	/**
+	 * Make the table of movable tiles, indexed by a random byte: the top six bits
+	 * choose the tile type (each type having slots in proportion to its weight, and
+	 * at least one if its weight is above 0) and the bottom two bits the rotation.
+	 */
+	private static byte[] makeTiles(int[] weights) {
+		long total = 0;
+		int remaining = 0; // types still to be given slots that must have one
+		
+		for(int weight : weights) {
+			total += weight;
+			
+			if(weight > 0)
+				remaining++;
+		}
+		
+		// Share out the slots in proportion to the weights, rounding as evenly as possible
+		byte[] tiles = new byte[SLOTS * 4];
+		RotationAngle[] rotations = RotationAngle.values();
+		long cumulative = 0;
+		int slot = 0;
+		
+		for(int type = 0; type < TYPES.length; type++) {
+			cumulative += weights[type];
+			int end = (int) ((cumulative * SLOTS + total / 2) / total);
+			
+			// A small weight can round to no slots, or a large one leave none for the rest
+			if(weights[type] > 0) {
+				remaining--;
+				end = Math.min(Math.max(end, slot + 1), SLOTS - remaining);
+			}
+			
+			for(; slot < end; slot++) {
+				for(int rotation = 0; rotation < 4; rotation++)
+					tiles[slot * 4 + rotation] = (byte) Tile.pack(TYPES[type], rotations[rotation], true);
+			}
+		}
+		
+		return tiles;
+	}
+	
+	/**
+	 * Check whether an internal coordinate is on the edge of the board.
+	 */
+	private boolean isEdge(int i, int j) {
+		return i == 0 || i == height - 1 || j == 0 || j == width - 1;
+	}
+	
+	/**
+	 * Check whether an internal coordinate is a corner of the board.
+	 */
+	private boolean isCorner(int i, int j) {
+		return (i == 0 || i == height - 1) && (j == 0 || j == width - 1);
+	}
+	
+	/**
+	 * Get the packed state of the immovable tile at the specified internal coordinate.
+	 * 
+	 * @param i The internal row.
+	 * @param j The internal column.
+	 * @param line Whether a tile on the edge (but not a corner) is a line rather than
+	 * a T-shape facing into the board.
+	 * @return The packed tile state.
+	 */
+	private int fixedTile(int i, int j, boolean line) {
+		// Check if not on the edge (must be cross in this case)
+		if(!isEdge(i, j)) {
+			return Tile.pack(TileType.CROSS, RotationAngle.DEFAULT, false);
+		}
+		
+		// Tile is on the edge, determine which edge
+		if(i == 0 && j == 0) {
+			// Top left hand corner
+			return Tile.pack(TileType.CORNER, RotationAngle.DEFAULT, false);
+		}
+		else if(i == 0 && j == width - 1) {
+			// Top right hand corner
+			return Tile.pack(TileType.CORNER, RotationAngle.NINETY, false);
+		}
+		else if(i == height - 1 && j == width - 1) {
+			// Bottom right hand corner
+			return Tile.pack(TileType.CORNER, RotationAngle.HUNDREDANDEIGHTY, false);
+		}
+		else if(i == height - 1 && j == 0) {
+			// Bottom left hand corner
+			return Tile.pack(TileType.CORNER, RotationAngle.TWOHUNDREDANDSEVENTY, false);
+		}
+		
+		if(i == 0) {
+			// Top most row
+			return line ? Tile.pack(TileType.LINE, RotationAngle.NINETY, false) :
+				Tile.pack(TileType.TSHAPE, RotationAngle.NINETY, false);
+		}
+		else if(i == height - 1) {
+			// Bottom most row
+			return line ? Tile.pack(TileType.LINE, RotationAngle.NINETY, false) :
+				Tile.pack(TileType.TSHAPE, RotationAngle.TWOHUNDREDANDSEVENTY, false);
+		}
+		else if(j == 0) {
+			// Left most column
+			return line ? Tile.pack(TileType.LINE, RotationAngle.DEFAULT, false) :
+				Tile.pack(TileType.TSHAPE, RotationAngle.DEFAULT, false);
+		}
+		else {
+			// Right most column
+			return line ? Tile.pack(TileType.LINE, RotationAngle.DEFAULT, false) :
+				Tile.pack(TileType.TSHAPE, RotationAngle.HUNDREDANDEIGHTY, false);
+		}
+	}
+	
+	/**
+	 * Write the tiles of a random board, with no token or treasure, into an array of
+	 * packed tiles indexed as on a board (see Board.getIndex()).
+	 * 
+	 * @param cells The array to write to, at least width * height long.
+	 * @param rand The random number generator to choose tiles with.
+	 */
+	public void generate(byte[] cells, SplittableRandom rand) {
+		System.arraycopy(template, 0, cells, 0, template.length);
+		
+		// A byte of random bits for each movable tile
+		long bits = 0;
+		
+		for(int i = 0; i < movable.length; i++) {
+			if((i & 7) == 0)
+				bits = rand.nextLong();
+			
+			cells[movable[i]] = tiles[(int) bits & 0xFF];
+			bits >>>= 8;
+		}
+		
+		// A bit for each edge tile, set for a T-shape
+		for(int i = 0; i < edges.length; i++) {
+			if((i & 63) == 0)
+				bits = rand.nextLong();
+			
+			if((bits & 1) != 0)
+				cells[edges[i]] = edgeTShapes[i];
+			
+			bits >>>= 1;
+		}
+	}
+	
+	/**
+	 * Generate a new random board, with the token at (1,1) and no treasure.
+	 * 
+	 * @param rand The random number generator to choose tiles with.
+	 * @return The board.
+	 */
+	public Board generate(SplittableRandom rand) {
+		return new Board(this, rand);
+	}
+	
+	/**
+	 * Generate a pool of random boards.
+	 * 
+	 * @param size The number of boards.
+	 * @param rand The random number generator to choose tiles with.
+	 * @return The boards.
+	 */
+	public Board[] createPool(int size, SplittableRandom rand) {
+		Board[] pool = new Board[size];
+		
+		for(int i = 0; i < size; i++)
+			pool[i] = generate(rand);
+		
+		return pool;
+	}
+	
+	/**
+	 * Generate every board in a pool again in place, as if each were new. Nothing is
+	 * allocated unless a board's tiles are shared with a snapshot.
+	 * 
+	 * @param pool The boards, all the size of this generator's.
+	 * @param rand The random number generator to choose tiles with.
+	 * @throws IllegalArgumentException When a board is the wrong size.
+	 */
+	public void refill(Board[] pool, SplittableRandom rand) throws IllegalArgumentException {
+		for(Board board : pool)
+			board.regenerate(this, rand);
+	}
+	
+	/**
+	 * Generate a board again in place, as if it were new, with the token at (1,1) and
+	 * no treasure. Snapshots of the board are unaffected.
+	 * 
+	 * @param board The board, the size of this generator's.
+	 * @param rand The random number generator to choose tiles with.
+	 * @throws IllegalArgumentException When the board is the wrong size.
+	 */
+	public void regenerate(Board board, SplittableRandom rand) throws IllegalArgumentException {
+		board.regenerate(this, rand);
+	}
+	
+	/**
+	 * Get whether or not each row (by board coordinate) can be inserted into on a
+	 * new board. The array is shared, so it must not be changed.
+	 */
+	boolean[] getMovableRows() {
+		return movableRows;
+	}
+	
+	/**
+	 * Get whether or not each column (by board coordinate) can be inserted into on a
+	 * new board. The array is shared, so it must not be changed.
+	 */
+	boolean[] getMovableColumns() {
+		return movableColumns;
+	}
+	
+	/**
+	 * Get the width of the boards.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Get the height of the boards.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Get the weights of CORNER, LINE, TSHAPE and CROSS for movable tiles.
+	 */
+	public int[] getWeights() {
+		return weights.clone();
+	}
+
+}
@@ -1,6 +1,10 @@
 package com.labyrinth.game;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
+
+import com.labyrinth.game.ai.Speculation;
+import com.labyrinth.game.ai.Strategy;
+import com.labyrinth.game.modes.GameMode;
 
 /**
  * Represents a computer opponent for a player to play against in the Labyrinth
@@ -15,7 +19,10 @@ public class ComputerPlayer extends Player {
 	
 	private ArrayList<Integer> columns;
 	private ArrayList<Integer> rows;
-	private Random rand;
+	private SplittableRandom rand;
+	private int[] inserts; // every insert into the rows and columns, see Move
+	private Strategy strategy; // null for random inserts
+	private Speculation speculation; // works out the next insert ahead of time, see speculate()
 	
 	// Save RotationAngle and TileType arrays for "caching" purposes
 	private RotationAngle[] angles;
@@ -23,14 +30,29 @@ public class ComputerPlayer extends Player {
 	
 	/**
 	 * Generate a computer player opponent using the board
-	 * settings as information on the computers tile moves.
+	 * settings as information on the computers tile moves, with an unseeded
+	 * random number generator.
 	 * 
 	 * @param board The board to gather information from.
 	 */
 	public ComputerPlayer(Board board) {
+		this(board, new SplittableRandom());
+	}
+	
+	/**
+	 * Generate a computer player opponent using the board settings as information
+	 * on the computers tile moves. The spare tile is chosen by a random number
+	 * generator, and random inserts by a generator split from it.
+	 * 
+	 * @param board The board to gather information from.
+	 * @param rand The random number generator to use.
+	 */
+	public ComputerPlayer(Board board, SplittableRandom rand) {
+		super(rand);
+		
 		this.columns = new ArrayList<Integer>();
 		this.rows = new ArrayList<Integer>();
-		this.rand = new Random();
+		this.rand = rand.split();
 		
 		// Add available rows and columns (odd tiles are immovable, so get even)
 		for(int i = 1; i <= board.getHeight(); i++) {
@@ -46,6 +68,138 @@ public class ComputerPlayer extends Player {
 		
 		angles = RotationAngle.values();
 		types = TileType.values();
+		
+		// Both sides of each available row and column
+		inserts = new int[(rows.size() + columns.size()) * 2];
+		int n = 0;
+		
+		for(int row : rows) {
+			inserts[n++] = Move.insertRow(row, Direction.LEFT);
+			inserts[n++] = Move.insertRow(row, Direction.RIGHT);
+		}
+		for(int column : columns) {
+			inserts[n++] = Move.insertColumn(column, Direction.TOP);
+			inserts[n++] = Move.insertColumn(column, Direction.BOTTOM);
+		}
+	}
+	
+	/**
+	 * Construct a copy of another computer player. The available rows and columns
+	 * are shared, as they never change, and the copy's random number generator is
+	 * split from the other's, so the copy must be made on the thread using the other.
+	 * 
+	 * @param other The computer player to copy.
+	 */
+	public ComputerPlayer(ComputerPlayer other) {
+		super(other);
+		
+		this.columns = other.columns;
+		this.rows = other.rows;
+		this.rand = other.rand.split();
+		this.angles = other.angles;
+		this.types = other.types;
+		this.inserts = other.inserts;
+		this.strategy = other.strategy;
+		
+		// A copy works out its own inserts, so it can't take the other's guess
+		this.speculation = null;
+	}
+	
+	/**
+	 * Choose this computer player's next insert using its strategy, or a random
+	 * legal insert if it has none.
+	 * 
+	 * @param game The game the insert is to be made in.
+	 * @return The encoded insert (see Move), or 0 if no insert is legal.
+	 */
+	public int chooseMove(GameMode game) {
+		if(strategy == null)
+			return chooseInsert(game);
+		
+		if(speculation != null)
+			return speculation.chooseMove(game);
+		
+		return strategy.chooseMove(game);
+	}
+	
+	/**
+	 * Start working out this computer player's next insert in the background, as if
+	 * the player has finished their move in the game's current position. The next
+	 * call to chooseMove() uses it if the position is still the same. Random inserts
+	 * are quick enough not to need it.
+	 * 
+	 * @param game The game the insert is to be made in. It is not changed.
+	 */
+	public void speculate(GameMode game) {
+		if(strategy == null)
+			return;
+		
+		if(speculation == null)
+			speculation = new Speculation(strategy);
+		
+		speculation.start(game);
+	}
+	
+	/**
+	 * Set the strategy used to choose inserts. The strategy replaced is not shut down,
+	 * as strategies may be shared between games (see Difficulty.createStrategy()).
+	 * 
+	 * @param strategy The strategy, or null for random inserts.
+	 */
+	public void setStrategy(Strategy strategy) {
+		stopSpeculating();
+		this.strategy = strategy;
+	}
+	
+	/**
+	 * Stop working out the next insert in the background and end the thread it is
+	 * worked out on, e.g. when the game is finished with. Inserts are still chosen
+	 * when asked for, and speculate() starts a new thread.
+	 */
+	public void stopSpeculating() {
+		if(speculation != null)
+			speculation.shutdown();
+		
+		speculation = null;
+	}
+	
+	/**
+	 * Get the speculation working out inserts ahead of time, null if speculate()
+	 * hasn't been called since the strategy was set.
+	 */
+	public Speculation getSpeculation() {
+		return speculation;
+	}
+	
+	/**
+	 * Get the strategy used to choose inserts, null for random inserts.
+	 */
+	public Strategy getStrategy() {
+		return strategy;
+	}
+	
+	/**
+	 * Choose a random legal insert for this computer player. A random insert is
+	 * picked from the available rows and columns and, if the game doesn't allow it
+	 * (e.g. it inserts back), the next one along is tried instead.
+	 * 
+	 * @param game The game the insert is to be made in.
+	 * @return The encoded insert (see Move), or 0 if no insert is legal.
+	 */
+	public int chooseInsert(GameMode game) {
+		if(inserts.length == 0)
+			return 0;
+		
+		int start = rand.nextInt(inserts.length);
+		
+		for(int i = 0; i < inserts.length; i++) {
+			int move = inserts[(start + i) % inserts.length];
+			
+			if(game.checkMove(move, this) == Move.LEGAL)
+				return move;
+		}
+		
+		return 0;
 	}
 	
 	/**
@@ -0,0 +1,147 @@
+package com.labyrinth.game;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.labyrinth.game.ai.Evaluator;
+import com.labyrinth.game.ai.MctsStrategy;
+import com.labyrinth.game.ai.SearchStrategy;
+import com.labyrinth.game.ai.Strategy;
+import com.labyrinth.game.ai.TranspositionTable;
+
+/**
+ * Represents how hard the computer player is to play against. Each difficulty
+ * has a strategy and a fixed budget for every computer player move:
+ * 
+ * 		EASY    random inserts, as the computer player has always made
+ * 		NORMAL  alpha-beta search of 20,000 positions or 100ms, on 1 thread
+ * 		HARD    alpha-beta search of 200,000 positions or 500ms, on 1 thread,
+ * 		        with an 8MB transposition table
+ * 		INSANE  Monte Carlo Tree Search of 200,000 playouts or 1000ms, on 4 threads
+ * 
+ * Whichever of the positions and the time runs out first ends the move, and no
+ * more than the given threads are ever used at once by a game's computer player.
+ * 
+ * Games are started and thrown away without their strategies being shut down, so
+ * the strategies for games share one transposition table and one pool of threads
+ * for each difficulty, created when first needed.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public enum Difficulty {
+	
+	EASY(0, 0, 1, 0),
+	NORMAL(20000, 100, 1, 0),
+	HARD(200000, 500, 1, 8L << 20),
+	INSANE(200000, 1000, 4, 0);
+	
+	private long nodes;
+	private long millis;
+	private int threads;
+	private long tableBytes;
+	private TranspositionTable table; // shared by createStrategy()
+	private ForkJoinPool pool; // shared by createStrategy()
+	
+	private Difficulty(long nodes, long millis, int threads, long tableBytes) {
+		this.nodes = nodes;
+		this.millis = millis;
+		this.threads = threads;
+		this.tableBytes = tableBytes;
+	}
+	
+	/**
+	 * Create a new strategy for a computer player at this difficulty, within its budget.
+	 * Strategies created this way share the difficulty's table and threads, so they
+	 * needn't be shut down.
+	 * 
+	 * @return The strategy, or null for random inserts.
+	 */
+	public synchronized Strategy createStrategy() {
+		if(tableBytes > 0 && table == null)
+			table = new TranspositionTable(tableBytes);
+		if(this == INSANE && pool == null)
+			pool = new ForkJoinPool(threads);
+		
+		return createStrategy(table, pool);
+	}
+	
+	/**
+	 * Create a new strategy for a computer player at this difficulty, within its budget,
+	 * with a table and threads of its own. An MctsStrategy created this way must be
+	 * shut down when it is finished with.
+	 * 
+	 * @return The strategy, or null for random inserts.
+	 */
+	public Strategy createSeparateStrategy() {
+		return createStrategy(tableBytes > 0 ? new TranspositionTable(tableBytes) : null, null);
+	}
+	
+	/**
+	 * Create a strategy at this difficulty using the given table and pool.
+	 */
+	private Strategy createStrategy(TranspositionTable table, ForkJoinPool pool) {
+		switch(this) {
+			case NORMAL:
+			case HARD:
+				return new SearchStrategy(millis, nodes, new Evaluator(), table);
+			case INSANE:
+				return new MctsStrategy(millis, nodes, threads, pool);
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Get the most positions (or playouts) searched for each move, 0 for no search.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Get the most time spent on each move in milliseconds, 0 for no search.
+	 */
+	public long getMillis() {
+		return millis;
+	}
+	
+	/**
+	 * Get the most threads used at once.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Get the memory used by the transposition table in bytes, 0 for none.
+	 */
+	public long getTableBytes() {
+		return tableBytes;
+	}
+	
+	/**
+	 * Get the name of the difficulty as typed by the user, e.g. "normal".
+	 */
+	public String toString() {
+		return name().toLowerCase();
+	}
+	
+	/**
+	 * Convert a name typed by the user (e.g. "normal") to a Difficulty.
+	 * 
+	 * @param name The name to convert, in any case.
+	 * @return The resulting Difficulty.
+	 * @throws IllegalArgumentException When the name isn't a difficulty.
+	 */
+	public static Difficulty convertFromString(String name) throws IllegalArgumentException {
+		for(Difficulty difficulty : values()) {
+			if(difficulty.toString().equals(name.toLowerCase()))
+				return difficulty;
+		}
+		
+		throw new IllegalArgumentException("Difficulty must be easy, normal, hard or insane");
+	}
+
+}
@@ -9,6 +9,22 @@ package com.labyrinth.game;
  */
 public enum Direction {
 	
-	LEFT, RIGHT, TOP, BOTTOM
+	LEFT, RIGHT, TOP, BOTTOM;
+	
+	/**
+	 * Get the opposite direction (e.g. LEFT gives RIGHT).
+	 */
+	public Direction opposite() {
+		switch(this) {
+			case LEFT:
+				return RIGHT;
+			case RIGHT:
+				return LEFT;
+			case TOP:
+				return BOTTOM;
+			default:
+				return TOP;
+		}
+	}
 
 }
@@ -22,6 +22,7 @@ public class GameManager {
 	 * 
 	 * ROWS <no>
 	 * COLUMNS <no>
+	 * DIFFICULTY <easy/normal/hard/insane> (easy if missing)
 	 * GAME_MODE <mode>
 	 * TILE <type> <rotation>
 	 * ... (ROWS x COLUMNS)
@@ -52,6 +53,9 @@ public class GameManager {
 			} else if(lineTokens[0].equals("COLUMNS")) {
 				// Process columns
 				settings.setColumns(Integer.parseInt(lineTokens[1]));
+			} else if(lineTokens[0].equals("DIFFICULTY")) {
+				// Process difficulty
+				settings.setDifficulty(Difficulty.convertFromString(lineTokens[1]));
 			} else if(lineTokens[0].equals("GAME_MODE")) {
 				// Process game mode
 				if(lineTokens[1].equals("tc")) {
@@ -122,6 +126,8 @@ public class GameManager {
 		writer.newLine();
 		writer.write("COLUMNS " + columns);
 		writer.newLine();
+		writer.write("DIFFICULTY " + game.getSettings().getDifficulty());
+		writer.newLine();
 		writer.write("GAME_MODE " + gameMode);
 		writer.newLine();
 		
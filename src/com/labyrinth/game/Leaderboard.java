@@ -23,6 +23,16 @@ public class Leaderboard {
 	private ArrayList<Integer> scores;
 	private String path;
 	
+	/**
+	 * Construct an empty leaderboard that isn't kept in a file, e.g. for games
+	 * played without a user interface.
+	 */
+	public Leaderboard() {
+		this.names = new ArrayList<String>();
+		this.scores = new ArrayList<Integer>();
+		this.path = null;
+	}
+	
 	/**
 	 * Construct a leader board from an existing leader board file.
 	 * 
@@ -149,6 +159,9 @@ public class Leaderboard {
 	 * @throws IOException If an error occurs when writing to leaderboard file.
 	 */
 	public void save() throws IOException {
+		if(path == null)
+			throw new IOException("Leaderboard is not kept in a file");
+		
 		BufferedWriter writer = new BufferedWriter(new FileWriter(path));
 
 		// Save the leaderboard
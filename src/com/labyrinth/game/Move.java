@@ -0,0 +1,216 @@
+package com.labyrinth.game;
+
+/**
+ * Encodes moves as plain integers so they can be stored and passed around without
+ * creating objects. The layout of a move is:
+ * 
+ * bits 0-2   kind (ROW, COLUMN, ROTATE, STEP or GOTO)
+ * bits 3-4   direction (Direction ordinal) for ROW, COLUMN and STEP
+ * bits 5-6   quarter turns for ROTATE, or to turn the spare tile by before a ROW
+ *            or COLUMN insert
+ * bits 8-15  row/column number for ROW and COLUMN, or the column for GOTO
+ * bits 16-23 the row for GOTO
+ * 
+ * A STEP moves the token a single tile, where TOP is up and BOTTOM is down. 0 is
+ * never a valid move, and stands for no move.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public final class Move {
+	
+	// Kinds of move
+	public static final int ROW = 1;
+	public static final int COLUMN = 2;
+	public static final int ROTATE = 3;
+	public static final int STEP = 4;
+	public static final int GOTO = 5;
+	
+	// Results of checking a move
+	public static final int LEGAL = 0;
+	public static final int INVALID = 1; // not a kind of move
+	public static final int INSERT_BACK = 2;
+	public static final int WRONG_DIRECTION = 3; // e.g. inserting into a row from the top
+	public static final int OUT_OF_RANGE = 4;
+	public static final int IMMOVABLE = 5;
+	public static final int BLOCKED = 6; // a wall is in the way of a step
+	public static final int UNREACHABLE = 7;
+	
+	private static final Direction[] DIRECTIONS = Direction.values();
+	
+	private static final int ANGLE = 0x60;
+	
+	// Kind, direction and line of an insert; flipping bit 3 gives the opposite side
+	private static final int INSERT = 0xFF1F;
+	private static final int OPPOSITE = 0x8;
+	
+	private Move() {}
+	
+	/**
+	 * Encode inserting the spare tile into a row.
+	 * 
+	 * @param row The row to insert into.
+	 * @param direc The side to insert from (LEFT or RIGHT).
+	 */
+	public static int insertRow(int row, Direction direc) {
+		return ROW | (direc.ordinal() << 3) | (line(row) << 8);
+	}
+	
+	/**
+	 * Encode inserting the spare tile into a column.
+	 * 
+	 * @param column The column to insert into.
+	 * @param direc The side to insert from (TOP or BOTTOM).
+	 */
+	public static int insertColumn(int column, Direction direc) {
+		return COLUMN | (direc.ordinal() << 3) | (line(column) << 8);
+	}
+	
+	/**
+	 * Encode turning the spare tile and then inserting it, as one move.
+	 * 
+	 * @param insert The encoded row or column insert.
+	 * @param angle The angle to turn the spare tile by first, either 0, 90, 180 or 270.
+	 * @throws NumberFormatException When angle is not 0, 90, 180 or 270.
+	 */
+	public static int withRotation(int insert, int angle) throws NumberFormatException {
+		if(angle < 0 || angle > 270 || (angle % 90) != 0)
+			throw new NumberFormatException("Angle must either be 90, 180 or 270");
+		
+		return (insert & ~ANGLE) | ((angle / 90) << 5);
+	}
+	
+	/**
+	 * Encode rotating the spare tile.
+	 * 
+	 * @param angle The angle to rotate by, either 90, 180 or 270.
+	 * @throws NumberFormatException When angle is not 90, 180 or 270.
+	 */
+	public static int rotate(int angle) throws NumberFormatException {
+		if(angle < 0 || angle > 270 || (angle % 90) != 0)
+			throw new NumberFormatException("Angle must either be 90, 180 or 270");
+		
+		return ROTATE | (((angle / 90) & 0x3) << 5);
+	}
+	
+	/**
+	 * Encode moving the token a single tile.
+	 * 
+	 * @param direc The direction to move in (TOP is up, BOTTOM is down).
+	 */
+	public static int step(Direction direc) {
+		return STEP | (direc.ordinal() << 3);
+	}
+	
+	/**
+	 * Encode moving the token straight to a tile.
+	 * 
+	 * @param column The column to move the token to.
+	 * @param row The row to move the token to.
+	 */
+	public static int moveTo(int column, int row) {
+		return GOTO | (line(column) << 8) | (line(row) << 16);
+	}
+	
+	/**
+	 * Fit a row or column number into its 8 bits. Numbers that don't fit become 0,
+	 * which is never on the board, rather than wrapping onto a real line.
+	 */
+	private static int line(int n) {
+		return (n & ~0xFF) == 0 ? n : 0;
+	}
+	
+	/**
+	 * Check if an insert pushes the tile back into the place the previous insert
+	 * pushed it out of, i.e. the same row or column from the opposite side. Any
+	 * rotation on either move is ignored.
+	 * 
+	 * @param move The encoded insert to check.
+	 * @param previous The previous encoded insert, or 0 if there was none.
+	 */
+	public static boolean isInsertBack(int move, int previous) {
+		int kind = move & 0x7;
+		
+		if(kind != ROW && kind != COLUMN)
+			return false;
+		
+		return (move & INSERT) == ((previous & INSERT) ^ OPPOSITE);
+	}
+	
+	/**
+	 * Check if a move is a row or column insert.
+	 */
+	public static boolean isInsert(int move) {
+		int kind = move & 0x7;
+		return kind == ROW || kind == COLUMN;
+	}
+	
+	/**
+	 * Describe a move the way it would be typed in, e.g. "insert row left 2".
+	 * 
+	 * @param move The encoded move, or 0 for no move.
+	 */
+	public static String toString(int move) {
+		String direc = getDirection(move).toString().toLowerCase();
+		String rotation = getAngle(move) != 0 ? "rotate " + getAngle(move) + ", " : "";
+		
+		switch(getKind(move)) {
+			case ROW:
+				return rotation + "insert row " + direc + " " + getLine(move);
+			case COLUMN:
+				return rotation + "insert column " + direc + " " + getLine(move);
+			case ROTATE:
+				return "rotate " + getAngle(move);
+			case STEP:
+				if(getDirection(move) == Direction.TOP)
+					return "move up";
+				else if(getDirection(move) == Direction.BOTTOM)
+					return "move down";
+				else
+					return "move " + direc;
+			case GOTO:
+				return "goto " + getLine(move) + " " + getRow(move);
+			default:
+				return "N/A";
+		}
+	}
+	
+	/**
+	 * Get the kind of a move.
+	 */
+	public static int getKind(int move) {
+		return move & 0x7;
+	}
+	
+	/**
+	 * Get the direction of an insert or step.
+	 */
+	public static Direction getDirection(int move) {
+		return DIRECTIONS[(move >> 3) & 0x3];
+	}
+	
+	/**
+	 * Get the angle of a rotation, or the angle the spare tile is turned by before an
+	 * insert, in degrees.
+	 */
+	public static int getAngle(int move) {
+		return ((move >> 5) & 0x3) * 90;
+	}
+	
+	/**
+	 * Get the row or column number of an insert, or the column of a goto.
+	 */
+	public static int getLine(int move) {
+		return (move >> 8) & 0xFF;
+	}
+	
+	/**
+	 * Get the row of a goto.
+	 */
+	public static int getRow(int move) {
+		return (move >> 16) & 0xFF;
+	}
+
+}
@@ -1,5 +1,5 @@
 package com.labyrinth.game;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents a player.
@@ -14,18 +14,28 @@ public class Player {
 	private int score;
 	private int moves;
 	private Tile spareTile;
-	private String lastMove;
+	private int lastMove; // encoded, see Move
+	private int lastInsert; // the last row/column insert, for the insert back rule
 	
 	/**
-	 * Construct a player object with a random spare tile.
+	 * Construct a player object with a random spare tile from an unseeded generator.
 	 */
 	public Player() {
+		this(new SplittableRandom());
+	}
+	
+	/**
+	 * Construct a player object with a spare tile chosen by a random number generator.
+	 * 
+	 * @param r The random number generator to choose the spare tile with.
+	 */
+	public Player(SplittableRandom r) {
 		this.score = 0;
 		this.moves = 0;
-		this.lastMove = "N/A";
+		this.lastMove = 0;
+		this.lastInsert = 0;
 		
 		// Generate a random spare tile
-		Random r = new Random();
 		int randomSelection = r.nextInt(4); // CORNER, LINE, TSHAPE, CROSS
 		int rotation = r.nextInt(4); // DEFAULT, NINETY, HUNDREDANDEIGHTY, TWOHUNDREDANDSEVENTY
 		
@@ -35,6 +45,19 @@ public class Player {
 		this.spareTile = new Tile(tileTypes[randomSelection], rotationAngles[rotation]);
 	}
 	
+	/**
+	 * Construct a copy of another player, with its own copy of the spare tile.
+	 * 
+	 * @param other The player to copy.
+	 */
+	public Player(Player other) {
+		this.score = other.score;
+		this.moves = other.moves;
+		this.lastMove = other.lastMove;
+		this.lastInsert = other.lastInsert;
+		this.spareTile = new Tile(other.spareTile);
+	}
+	
 	/**
 	 * Set the current score of the player.
 	 */
@@ -80,19 +103,48 @@ public class Player {
 	}
 	
 	/**
-	 * Get the last move made by this computer player.
+	 * Get the last move made by this player, described as it would be typed in.
 	 */
 	public String getLastMove() {
+		return Move.toString(lastMove);
+	}
+	
+	/**
+	 * Get the last move made by this player, encoded (see Move). 0 if there was none.
+	 */
+	public int getLastMoveCode() {
 		return lastMove;
 	}
 	
 	/**
-	 * Update the last move string.
+	 * Get the last row or column insert made by this player, encoded (see Move). 0 if
+	 * there was none.
+	 */
+	public int getLastInsert() {
+		return lastInsert;
+	}
+	
+	/**
+	 * Update the last move, and the last insert if the move is an insert.
+	 * 
+	 * @param move The encoded move performed.
+	 */
+	public void updateLastMove(int move) {
+		lastMove = move;
+		
+		if(Move.isInsert(move))
+			lastInsert = move;
+	}
+	
+	/**
+	 * Put back a previous last move and last insert (e.g. when a move is taken back).
 	 * 
-	 * @param s The last move performed.
+	 * @param move The encoded last move.
+	 * @param insert The encoded last insert.
 	 */
-	public void updateLastMove(String s) {
-		lastMove = s;
+	public void restoreLastMove(int move, int insert) {
+		lastMove = move;
+		lastInsert = insert;
 	}
 
 }
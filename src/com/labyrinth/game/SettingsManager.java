@@ -1,8 +1,10 @@
 package com.labyrinth.game;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 /**
  * Manages settings and configurations for the Labyrinth game. Allows for the loading
@@ -19,6 +21,15 @@ public class SettingsManager {
 	private int rows;
 	private int columns;
 	private String leaderboard;
+	private Difficulty difficulty;
+	private long seed;
+	private boolean seeded; // false to seed games differently every time
+	private SplittableRandom random; // every game's generator is split from this one
+	private int[] tileWeights; // the weights of CORNER, LINE, TSHAPE and CROSS
+	private BoardGenerator generator; // for the current size and weights, made when needed
+	private int solvableRounds; // 0 for any layout
+	
+	public static final int MAX_SOLVABLE_ROUNDS = 50;
 	
 	/**
 	 * Construct a SettingsManager with default settings.
@@ -40,6 +51,8 @@ public class SettingsManager {
 		rows = 0;
 		columns = 0;
 		leaderboard = null;
+		difficulty = null;
+		tileWeights = null;
 
 		// Load settings from file
 		try {
@@ -59,6 +72,10 @@ public class SettingsManager {
 		rows = 7;
 		columns = 7;
 		leaderboard = "leaderboards/default";
+		difficulty = Difficulty.EASY;
+		tileWeights = BoardGenerator.getStandardWeights();
+		solvableRounds = 0;
+		clearSeed();
 	}
 	
 	/**
@@ -67,6 +84,10 @@ public class SettingsManager {
 	 * ROWS <no_rows>
 	 * COLUMNS <no_columns>
 	 * LEADERBOARD <leaderboard_path>
+	 * DIFFICULTY <easy/normal/hard/insane>
+	 * SEED <no> (optional, games are seeded differently every time without it)
+	 * TILES <corner>,<line>,<tshape>,<cross> (optional, the weights of movable tiles)
+	 * SOLVABLE <no> (optional, the most rounds a new game may need, 0 for any)
 	 * 
 	 * @param path The path to the settings file.
 	 * @throws IOException Thrown when the file is not found or invalid.
@@ -146,6 +167,60 @@ public class SettingsManager {
 					// Set leaderboard to that specified in settings file
 					this.leaderboard = entry[1];
 				}
+				else if(entry[0].equals("DIFFICULTY")) {
+					// Line contains DIFFICULTY value
+					try {
+						this.difficulty = Difficulty.convertFromString(entry[1]);
+					}
+					catch(IllegalArgumentException e) {
+						scanner.close();
+						reader.close();
+						throw new IOException(e.getMessage());
+					}
+				}
+				else if(entry[0].equals("SEED")) {
+					// Line contains SEED value
+					try {
+						setSeed(Long.parseLong(entry[1]));
+					}
+					catch(NumberFormatException e) {
+						scanner.close();
+						reader.close();
+						throw new IOException("Settings file is invalid: '" + entry[0] + "' contains invalid value.");
+					}
+				}
+				else if(entry[0].equals("TILES")) {
+					// Line contains TILES weights
+					try {
+						setTileWeights(parseWeights(entry[1]));
+					}
+					catch(IllegalArgumentException e) {
+						scanner.close();
+						reader.close();
+						throw new IOException("Settings file is invalid: '" + entry[0] + "' contains invalid value.");
+					}
+				}
+				else if(entry[0].equals("SOLVABLE")) {
+					// Line contains SOLVABLE value
+					int rounds;
+					
+					try {
+						rounds = Integer.parseInt(entry[1]);
+					}
+					catch(NumberFormatException e) {
+						scanner.close();
+						reader.close();
+						throw new IOException("Settings file is invalid: '" + entry[0] + "' contains invalid value.");
+					}
+					
+					if(rounds < 0 || rounds > MAX_SOLVABLE_ROUNDS) {
+						scanner.close();
+						reader.close();
+						throw new IOException("Solvable rounds must be between 0 and " + MAX_SOLVABLE_ROUNDS + " (inclusive)");
+					}
+					
+					this.solvableRounds = rounds;
+				}
 				else {
 					// Invalid type?
 					scanner.close();
@@ -173,6 +248,15 @@ public class SettingsManager {
 		if(leaderboard == null) {
 			leaderboard = "leaderboards/default";
 		}
+		if(difficulty == null) {
+			difficulty = Difficulty.EASY;
+		}
+		if(tileWeights == null) {
+			tileWeights = BoardGenerator.getStandardWeights();
+		}
+		if(random == null) {
+			clearSeed();
+		}
 	}
 
 	/**
@@ -182,6 +266,10 @@ public class SettingsManager {
 	 * ROWS <no_rows>
 	 * COLUMNS <no_columns>
 	 * LEADERBOARD <leaderboard_path>
+	 * DIFFICULTY <easy/normal/hard/insane>
+	 * SEED <no> (only if the games are seeded)
+	 * TILES <corner>,<line>,<tshape>,<cross> (only if not the standard weights)
+	 * SOLVABLE <no> (only if new games are checked)
 	 * 
 	 * @param path The path to the settings file.
 	 * @throws IOException Thrown when can't write to file.
@@ -196,6 +284,23 @@ public class SettingsManager {
 		writer.newLine();
 		writer.write("LEADERBOARD " + leaderboard);
 		writer.newLine();
+		writer.write("DIFFICULTY " + difficulty);
+		writer.newLine();
+		
+		if(seeded) {
+			writer.write("SEED " + seed);
+			writer.newLine();
+		}
+		
+		if(!Arrays.equals(tileWeights, BoardGenerator.getStandardWeights())) {
+			writer.write("TILES " + tileWeights[0] + "," + tileWeights[1] + "," + tileWeights[2] + "," + tileWeights[3]);
+			writer.newLine();
+		}
+		
+		if(solvableRounds > 0) {
+			writer.write("SOLVABLE " + solvableRounds);
+			writer.newLine();
+		}
 
 		writer.close();
 	}
@@ -215,12 +320,75 @@ public class SettingsManager {
 	}
 	
 	/**
-	 * Get the leaderboard path.
+	 * Get the leaderboard path, null if games have no leaderboard file.
 	 */
 	public String getLeaderboard() {
 		return leaderboard;
 	}
 	
+	/**
+	 * Get the difficulty of the computer player.
+	 */
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+	
+	/**
+	 * Get the seed games are generated from, if they are seeded (see isSeeded()).
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Get whether games are generated from a seed, so that the same games are played
+	 * every time the settings are loaded.
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+	
+	/**
+	 * Get the weights of CORNER, LINE, TSHAPE and CROSS that movable tiles are chosen with.
+	 */
+	public int[] getTileWeights() {
+		return tileWeights.clone();
+	}
+	
+	/**
+	 * Get the most rounds the player may need to reach the treasure in a new game, 0 if
+	 * games aren't checked (see TreasureChase).
+	 */
+	public int getSolvableRounds() {
+		return solvableRounds;
+	}
+	
+	/**
+	 * Get the generator of boards with the current size and tile weights. The
+	 * generator is only made again when they change, and can be shared by any
+	 * number of threads.
+	 */
+	public synchronized BoardGenerator getBoardGenerator() {
+		if(generator == null || generator.getWidth() != columns || generator.getHeight() != rows
+				|| !Arrays.equals(generator.getWeights(), tileWeights))
+			generator = Arrays.equals(tileWeights, BoardGenerator.getStandardWeights()) ?
+					BoardGenerator.getStandard(columns, rows) : new BoardGenerator(columns, rows, tileWeights);
+		
+		return generator;
+	}
+	
+	/**
+	 * Split a new random number generator off for a game. Generators are split off in
+	 * turn from one seeded by the settings, so the nth game since the settings were
+	 * seeded is always the same. Each generator must only be used by one thread, but
+	 * generators can be split off from any thread.
+	 * 
+	 * @return The new random number generator.
+	 */
+	public synchronized SplittableRandom splitRandom() {
+		return random.split();
+	}
+	
 	/**
 	 * Set the number of rows.
 	 */
@@ -236,10 +404,83 @@ public class SettingsManager {
 	}
 	
 	/**
-	 * Set the leaderboard path.
+	 * Set the leaderboard path, or null for games with no leaderboard file (e.g. games
+	 * played without a user interface, which mustn't write to the console).
 	 */
 	public void setLeaderboard(String leaderboard) {
 		this.leaderboard = leaderboard;
 	}
 	
+	/**
+	 * Set the difficulty of the computer player.
+	 */
+	public void setDifficulty(Difficulty difficulty) {
+		this.difficulty = difficulty;
+	}
+	
+	/**
+	 * Set the most rounds the player may need to reach the treasure in a new game.
+	 * 
+	 * @param solvableRounds The number of rounds, or 0 for games not to be checked.
+	 * @throws IllegalArgumentException When the rounds are negative or more than
+	 * MAX_SOLVABLE_ROUNDS.
+	 */
+	public void setSolvableRounds(int solvableRounds) throws IllegalArgumentException {
+		if(solvableRounds < 0 || solvableRounds > MAX_SOLVABLE_ROUNDS)
+			throw new IllegalArgumentException("Solvable rounds must be between 0 and " + MAX_SOLVABLE_ROUNDS + " (inclusive)");
+		
+		this.solvableRounds = solvableRounds;
+	}
+	
+	/**
+	 * Set the weights that movable tiles are chosen with.
+	 * 
+	 * @param tileWeights The relative chance of each of CORNER, LINE, TSHAPE and CROSS.
+	 * @throws IllegalArgumentException When there aren't four weights, one is
+	 * negative or they are all 0.
+	 */
+	public synchronized void setTileWeights(int[] tileWeights) throws IllegalArgumentException {
+		// Check the weights now rather than when the next game starts
+		BoardGenerator.checkWeights(tileWeights);
+		this.tileWeights = tileWeights.clone();
+	}
+	
+	/**
+	 * Parse tile weights written as <corner>,<line>,<tshape>,<cross>, e.g. "1,1,1,1".
+	 * 
+	 * @param weights The weights.
+	 * @return The parsed weights.
+	 * @throws IllegalArgumentException When the weights aren't four whole numbers.
+	 */
+	public static int[] parseWeights(String weights) throws IllegalArgumentException {
+		String[] parts = weights.split(",");
+		int[] parsed = new int[parts.length];
+		
+		for(int i = 0; i < parts.length; i++)
+			parsed[i] = Integer.parseInt(parts[i].trim());
+		
+		BoardGenerator.checkWeights(parsed);
+		return parsed;
+	}
+	
+	/**
+	 * Seed the games, starting the generators split off for games afresh.
+	 * 
+	 * @param seed The seed to generate games from.
+	 */
+	public synchronized void setSeed(long seed) {
+		this.seed = seed;
+		this.seeded = true;
+		this.random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Stop seeding the games, so they are different every time.
+	 */
+	public synchronized void clearSeed() {
+		this.seed = 0;
+		this.seeded = false;
+		this.random = new SplittableRandom();
+	}
+
 }
@@ -5,6 +5,11 @@ import com.labyrinth.ui.CharacterElements;
 /**
  * Represents a tile for use within a board.
  * 
+ * A tile is stored as a packed integer state (see the state constants below). A tile
+ * is either detached (e.g. a spare tile), in which case it holds its own state, or it
+ * is a view of a cell on a board, in which case all reads and writes go straight
+ * through to the board's packed storage.
+ * 
  * @author Gareth Gill
  * @author John Meikle
  * @version 0.1.24032013
@@ -12,18 +17,43 @@ import com.labyrinth.ui.CharacterElements;
  */
 public class Tile {
 	
-	private TileType type;
-	private RotationAngle rotation;
-	private boolean treasure;
-	private boolean token;
-	private boolean movable;
-	private String[] tileString;
+	// Packed state layout: bits 0-4 are the shape (type * 4 + rotation), then flags
+	public static final int SHAPE = 0x1F;
+	public static final int MOVABLE = 0x20;
+	public static final int TOKEN = 0x40;
+	public static final int TREASURE = 0x80;
+	
+	// Connectivity mask bits
+	public static final int NORTH = 0x1;
+	public static final int EAST = 0x2;
+	public static final int SOUTH = 0x4;
+	public static final int WEST = 0x8;
+	
+	// Save TileType and RotationAngle arrays for "caching" purposes
+	private static final TileType[] TYPES = TileType.values();
+	private static final RotationAngle[] ROTATIONS = RotationAngle.values();
 	
-	// Entry points
-	private boolean north;
-	private boolean east;
-	private boolean south;
-	private boolean west;
+	// Connectivity mask of each shape, indexed by type * 4 + rotation
+	private static final int[] CONNECTIONS = {
+		// CORNER
+		EAST | SOUTH, SOUTH | WEST, NORTH | WEST, NORTH | EAST,
+		// LINE
+		NORTH | SOUTH, EAST | WEST, NORTH | SOUTH, EAST | WEST,
+		// TSHAPE
+		NORTH | EAST | SOUTH, EAST | SOUTH | WEST, NORTH | SOUTH | WEST, NORTH | EAST | WEST,
+		// CROSS
+		NORTH | EAST | SOUTH | WEST, NORTH | EAST | SOUTH | WEST,
+		NORTH | EAST | SOUTH | WEST, NORTH | EAST | SOUTH | WEST,
+		// EMPTY
+		NORTH | EAST | SOUTH | WEST, NORTH | EAST | SOUTH | WEST,
+		NORTH | EAST | SOUTH | WEST, NORTH | EAST | SOUTH | WEST
+	};
+	
+	private int state;
+	
+	// Board this tile is a view of (null when detached)
+	private Board board;
+	private int index;
 	
 	/**
 	 * Construct a tile of a particular type.
@@ -31,12 +61,7 @@ public class Tile {
 	 * @param type The type of tile to construct.
 	 */
 	public Tile(TileType type) {
-		this.type = type;
-		this.rotation = RotationAngle.DEFAULT;
-		this.treasure = false;
-		this.token = false;
-		this.movable = true;
-		this.tileString = formTileString();
+		this(type, RotationAngle.DEFAULT, true);
 	}
 	
 	/**
@@ -46,56 +71,87 @@ public class Tile {
 	 * @param rotation The rotation of the tile to construct.
 	 */
 	public Tile(TileType type, RotationAngle rotation) {
-		this(type);
-		this.rotation = rotation;
-		this.tileString = formTileString();
+		this(type, rotation, true);
 	}
 	
 	public Tile(TileType type, RotationAngle rotation, boolean movable) {
-		this(type, rotation);
-		this.movable = movable;
-		this.tileString = formTileString();
+		this.state = pack(type, rotation, movable);
+	}
+	
+	/**
+	 * Construct a detached copy of another tile.
+	 * 
+	 * @param other The tile to copy.
+	 */
+	public Tile(Tile other) {
+		this.state = other.getState();
+	}
+	
+	/**
+	 * Construct a view of a cell on a board.
+	 * 
+	 * @param board The board containing the cell.
+	 * @param index The index of the cell on the board.
+	 */
+	Tile(Board board, int index) {
+		this.board = board;
+		this.index = index;
+	}
+	
+	/**
+	 * Get the packed state of the tile.
+	 */
+	public int getState() {
+		if(board != null)
+			return board.getCell(index);
+		
+		return state;
+	}
+	
+	/**
+	 * Set the packed state of the tile.
+	 */
+	public void setState(int newState) {
+		if(board != null)
+			board.setCell(index, newState);
+		else
+			state = newState;
 	}
 	
 	/**
 	 * Get the tile type.
 	 */
 	public TileType getType() {
-		return type;
+		return typeOf(getState());
 	}
 	
 	/**
 	 * Set the tile type.
 	 */
 	public void setType(TileType newType) {
-		type = newType;
-		
-		// Type has been altered, reform tile string
-		tileString = formTileString();
+		int s = getState();
+		setState((s & ~SHAPE) | (newType.ordinal() << 2) | (s & 0x3));
 	}
 	
 	/**
 	 * Check whether or not the tile contains treasure.
 	 */
 	public boolean hasTreasure() {
-		return treasure;
+		return (getState() & TREASURE) != 0;
 	}
 	
 	/**
 	 * Set whether or not the tile contains treasure.
 	 */
 	public void setTreasure(boolean state) {
-		treasure = state;
-		
-		// Treasure has been altered, re-form the tile string
-		tileString = formTileString();
+		setFlag(TREASURE, state);
 	}
 	
 	/**
 	 * Get the rotation of the tile.
 	 */
 	public RotationAngle getRotation() {
-		return rotation;
+		return rotationOf(getState());
 	}
 	
 	/**
@@ -105,54 +161,70 @@ public class Tile {
 		if(!isMovable())
 			return;
 		
-		rotation = newRotation;
-		
-		// Rotation has been altered, reform the tile string
-		tileString = formTileString();
+		setState((getState() & ~0x3) | newRotation.ordinal());
 	}
 	
 	/**
 	 * Check whether or not the tile contains the token.
 	 */
 	public boolean hasToken() {
-		return token;
+		return (getState() & TOKEN) != 0;
 	}
 	
 	/**
 	 * Set whether or not the tile contains the token.
 	 */
 	public void setToken(boolean state) {
-		token = state;
-		
-		// Token has been altered, reform the tile string
-		tileString = formTileString();
+		setFlag(TOKEN, state);
 	}
 	
 	/**
 	 * Check whether or not the tile is movable.
 	 */
 	public boolean isMovable() {
-		return movable;
+		return (getState() & MOVABLE) != 0;
 	}
 	
 	/**
 	 * Set whether or not the tile is movable.
 	 */
 	public void setMovable(boolean state) {
-		movable = state;
-		
-		// Reform tile string to reflect new state
-		tileString = formTileString();
+		setFlag(MOVABLE, state);
 	}
 	
 	/**
-	 * Get the string representation of the tile in the form of an array.
+	 * Set or clear a single flag of the packed state.
+	 */
+	private void setFlag(int flag, boolean on) {
+		int s = getState();
+		setState(on ? (s | flag) : (s & ~flag));
+	}
+	
+	/**
+	 * Get the string representation of the tile in the form of an array. The array
+	 * is shared between all tiles with the same state, so it must not be modified.
 	 * 
 	 * @return The string array formation of the tile split up into top, top-middle,
 	 * middle, middle-bottom and bottom respectively.
 	 */
 	public String[] getTileString() {
-		return tileString;
+		return stringOf(getState());
+	}
+	
+	/**
+	 * Holds the string representation of every possible packed state. It is built
+	 * once, the first time a tile is drawn (after the characters have been set).
+	 */
+	private static class TileStrings {
+		
+		private static final String[][] TABLE = new String[256][];
+		
+		static {
+			for(int state = 0; state < TABLE.length; state++)
+				if((state & SHAPE) < CONNECTIONS.length)
+					TABLE[state] = formTileString(state);
+		}
+		
 	}
 	
 	/**
@@ -168,7 +240,7 @@ public class Tile {
 	 * 
 	 * @return The converted string equivalent.
 	 */
-	private String[] convertFromPattern(String[] pattern) {
+	private static String[] convertFromPattern(String[] pattern) {
 		for(int i = 0; i < pattern.length; i++) {
 			pattern[i] = pattern[i].replace('1', CharacterElements.charBlock);
 			pattern[i] = pattern[i].replace('0', ' ');
@@ -180,13 +252,15 @@ public class Tile {
 	/**
 	 * Form the tile string array in accordance to the tile type.
 	 * 
+	 * @param state The packed state of the tile.
 	 * @return The string array formation of the tile split up into top, top-middle,
 	 * middle, middle-bottom and bottom respectively.
 	 */
-	private String[] formTileString() {
+	private static String[] formTileString(int state) {
 		String[] tile = new String[5];
+		RotationAngle rotation = rotationOf(state);
 		
-		switch(type) {
+		switch(typeOf(state)) {
 		case CROSS:
 			tile[0] = "1100011";
 			tile[1] = "1100011";
@@ -194,12 +268,6 @@ public class Tile {
 			tile[3] = "1100011";
 			tile[4] = "1100011";
 			
-			// Set entry points
-			north = true;
-			east = true;
-			south = true;
-			west = true;
-			
 			break;
 		case TSHAPE:
 			if(rotation == RotationAngle.DEFAULT) {
@@ -208,100 +276,40 @@ public class Tile {
 				tile[2] = "1100000";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = true;
-				east = true;
-				south = true;
-				west = false;
 			} else if(rotation == RotationAngle.NINETY) {
 				tile[0] = "1111111";
 				tile[1] = "1111111";
 				tile[2] = "0000000";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = false;
-				east = true;
-				south = true;
-				west = true;
 			} else if(rotation == RotationAngle.HUNDREDANDEIGHTY) {
 				tile[0] = "1100011";
 				tile[1] = "1100011";
 				tile[2] = "0000011";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = true;
-				east = false;
-				south = true;
-				west = true;
 			} else if(rotation == RotationAngle.TWOHUNDREDANDSEVENTY) {
 				tile[0] = "1100011";
 				tile[1] = "1100011";
 				tile[2] = "0000000";
 				tile[3] = "1111111";
 				tile[4] = "1111111";
-				
-				// Set entry points
-				north = true;
-				east = true;
-				south = false;
-				west = true;
 			}
 			
 			break;
 		case LINE:
-			if(rotation == RotationAngle.DEFAULT) {
+			if(rotation == RotationAngle.DEFAULT || rotation == RotationAngle.HUNDREDANDEIGHTY) {
 				tile[0] = "1100011";
 				tile[1] = "1100011";
 				tile[2] = "1100011";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = true;
-				east = false;
-				south = true;
-				west = false;
-			} else if(rotation == RotationAngle.NINETY) {
+			} else {
 				tile[0] = "1111111";
 				tile[1] = "1111111";
 				tile[2] = "0000000";
 				tile[3] = "1111111";
 				tile[4] = "1111111";
-				
-				// Set entry points
-				north = false;
-				east = true;
-				south = false;
-				west = true;
-			} else if(rotation == RotationAngle.HUNDREDANDEIGHTY) {
-				tile[0] = "1100011";
-				tile[1] = "1100011";
-				tile[2] = "1100011";
-				tile[3] = "1100011";
-				tile[4] = "1100011";
-				
-				// Set entry points
-				north = true;
-				east = false;
-				south = true;
-				west = false;
-			} else if(rotation == RotationAngle.TWOHUNDREDANDSEVENTY) {
-				tile[0] = "1111111";
-				tile[1] = "1111111";
-				tile[2] = "0000000";
-				tile[3] = "1111111";
-				tile[4] = "1111111";
-				
-				// Set entry points
-				north = false;
-				east = true;
-				south = false;
-				west = true;
 			}
 			
 			break;
@@ -312,48 +320,24 @@ public class Tile {
 				tile[2] = "1100000";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = false;
-				east = true;
-				south = true;
-				west = false;
 			} else if(rotation == RotationAngle.NINETY) {
 				tile[0] = "1111111";
 				tile[1] = "1111111";
 				tile[2] = "0000011";
 				tile[3] = "1100011";
 				tile[4] = "1100011";
-				
-				// Set entry points
-				north = false;
-				east = false;
-				south = true;
-				west = true;
 			} else if(rotation == RotationAngle.HUNDREDANDEIGHTY) {
 				tile[0] = "1100011";
 				tile[1] = "1100011";
 				tile[2] = "0000011";
 				tile[3] = "1111111";
 				tile[4] = "1111111";
-				
-				// Set entry points
-				north = true;
-				east = false;
-				south = false;
-				west = true;
 			} else if(rotation == RotationAngle.TWOHUNDREDANDSEVENTY) {
 				tile[0] = "1100011";
 				tile[1] = "1100011";
 				tile[2] = "1100000";
 				tile[3] = "1111111";
 				tile[4] = "1111111";
-				
-				// Set entry points
-				north = true;
-				east = true;
-				south = false;
-				west = false;
 			}
 			
 			break;
@@ -364,12 +348,6 @@ public class Tile {
 			tile[3] = "0000000";
 			tile[4] = "0000000";
 			
-			// Set entry points
-			north = true;
-			east = true;
-			south = true;
-			west = true;
-			
 			break;
 		}
 		
@@ -377,13 +355,13 @@ public class Tile {
 		tile = convertFromPattern(tile);
 		
 		// Check if tile contains treasure or token
-		if(hasToken()) {
+		if((state & TOKEN) != 0) {
 			// Change middle section, middle element to token
 			char[] tileMiddle = tile[2].toCharArray();
 			tileMiddle[3] = CharacterElements.charToken; // Set to token
 			tile[2] = new String(tileMiddle);
 		}
-		else if(hasTreasure()) {
+		else if((state & TREASURE) != 0) {
 			// Change middle section, middle element to treasure
 			char[] tileMiddle = tile[2].toCharArray();
 			tileMiddle[3] = CharacterElements.charTreasure; // Set to token
@@ -391,7 +369,7 @@ public class Tile {
 		}
 		
 		// Check if tile is immovable
-		if(!isMovable()) {
+		if((state & MOVABLE) == 0) {
 			// Change tile string to fixed representation
 			for(int i = 0; i < 5; i++)
 				tile[i] = tile[i].replace(' ', CharacterElements.charImmovable);
@@ -400,32 +378,81 @@ public class Tile {
 		return tile;
 	}
 	
+	/**
+	 * Get the connectivity mask (NORTH, EAST, SOUTH, WEST) of the tile.
+	 */
+	public int getConnections() {
+		return CONNECTIONS[getState() & SHAPE];
+	}
+	
 	/**
 	 * Check whether or not the north access point is available.
 	 */
 	public boolean getNorth() {
-		return north;
+		return (getConnections() & NORTH) != 0;
 	}
 	
 	/**
 	 * Check whether or not the east access point is available.
 	 */
 	public boolean getEast() {
-		return east;
+		return (getConnections() & EAST) != 0;
 	}
 	
 	/**
 	 * Check whether or not the south access point is available.
 	 */
 	public boolean getSouth() {
-		return south;
+		return (getConnections() & SOUTH) != 0;
 	}
 	
 	/**
 	 * Check whether or not the west access point is available.
 	 */
 	public boolean getWest() {
-		return west;
+		return (getConnections() & WEST) != 0;
+	}
+	
+	/**
+	 * Pack a tile description into its integer state.
+	 * 
+	 * @param type The type of the tile.
+	 * @param rotation The rotation of the tile.
+	 * @param movable Whether or not the tile is movable.
+	 * @return The packed state.
+	 */
+	public static int pack(TileType type, RotationAngle rotation, boolean movable) {
+		int s = (type.ordinal() << 2) | rotation.ordinal();
+		
+		return movable ? (s | MOVABLE) : s;
+	}
+	
+	/**
+	 * Get the connectivity mask of a packed state.
+	 */
+	public static int connectionsOf(int state) {
+		return CONNECTIONS[state & SHAPE];
+	}
+	
+	/**
+	 * Get the shared string representation of a packed state (see getTileString()).
+	 */
+	public static String[] stringOf(int state) {
+		return TileStrings.TABLE[state];
+	}
+	
+	/**
+	 * Get the tile type of a packed state.
+	 */
+	public static TileType typeOf(int state) {
+		return TYPES[(state & SHAPE) >> 2];
+	}
+	
+	/**
+	 * Get the rotation of a packed state.
+	 */
+	public static RotationAngle rotationOf(int state) {
+		return ROTATIONS[state & 0x3];
 	}
 
 }
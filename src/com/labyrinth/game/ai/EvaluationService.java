@@ -0,0 +1,254 @@
+package com.labyrinth.game.ai;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Evaluates each of a list of moves at the same time, every move on its own thread
+ * with its own snapshot of the game. A move is made on its snapshot and the result
+ * is scored by a search strategy, deepening until a shared deadline. Searches still
+ * running a little after the deadline are cancelled. The moves are compared at the
+ * deepest depth every finished search reached, as scores from different depths
+ * can't be compared fairly.
+ * 
+ * Each move gets a virtual thread where the Java runtime has them (Java 21 and
+ * later), so there is no pool to size. Otherwise the moves share a fixed pool of
+ * daemon threads, one per processor, waiting their turn if there are more moves.
+ * 
+ * Scores are from the computer player's point of view, higher being better for the
+ * computer player. A player insert that lets the token reach the treasure scores
+ * as a win for the player.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class EvaluationService {
+	
+	private static final long GRACE_MILLIS = 20; // for searches to notice the deadline
+	
+	private SearchStrategy search;
+	private ExecutorService executor;
+	
+	/**
+	 * Construct an evaluation service.
+	 * 
+	 * @param search The search strategy to score positions with. Its node budget applies
+	 * to each move and its time budget to each call to evaluate().
+	 */
+	public EvaluationService(SearchStrategy search) {
+		this(search, newExecutor());
+	}
+	
+	/**
+	 * Construct an evaluation service that runs each move on an executor of the
+	 * caller's, e.g. one with fewer or lower priority threads. The executor is shut
+	 * down with the service.
+	 * 
+	 * @param search The search strategy to score positions with. Its node budget applies
+	 * to each move and its time budget to each call to evaluate().
+	 * @param executor The executor to run each move's search on.
+	 */
+	public EvaluationService(SearchStrategy search, ExecutorService executor) {
+		this.search = search;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Create an executor that runs each task on a new virtual thread, or on a fixed
+	 * pool of daemon threads (one per processor) if virtual threads aren't available.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch(Exception e) {
+			// Virtual threads need Java 21 or later
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "labyrinth-evaluation");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Score each move, all at the same time. Waits for every move to be scored or for
+	 * the search strategy's time budget to run out, whichever is first.
+	 * The scores are all from the same depth, the deepest every scored move reached.
+	 * 
+	 * @param game The game to evaluate the moves in. It is not changed.
+	 * @param performer The player making the moves, the game's player or computer player.
+	 * @param moves The encoded moves.
+	 * @param n The number of moves.
+	 * @return The score of each move, or NaN for a move that is not legal or that
+	 * was not scored in time.
+	 */
+	public double[] evaluate(GameMode game, Player performer, int[] moves, int n) {
+		return evaluate(game, performer, moves, n, search);
+	}
+	
+	/**
+	 * Score each move, all at the same time, with a different search strategy than the
+	 * service's (e.g. a bigger budget for a later pass). See evaluate().
+	 */
+	public double[] evaluate(GameMode game, Player performer, int[] moves, int n, SearchStrategy search) {
+		double[][] values = evaluateDepths(game, performer, moves, n, search);
+		double[] scores = new double[n];
+		int depth = SearchStrategy.getMaxDepth();
+		
+		// Find the deepest depth every scored move reached
+		for(int i = 0; i < n; i++) {
+			if(values[i] != null) {
+				while(depth > 0 && Double.isNaN(values[i][depth]))
+					depth--;
+			}
+		}
+		
+		for(int i = 0; i < n; i++)
+			scores[i] = values[i] != null ? values[i][depth] : Double.NaN;
+		
+		return scores;
+	}
+	
+	/**
+	 * Score each move at every depth its search reached, all at the same time. Waits
+	 * for every move to be scored or for the search strategy's time budget to run out,
+	 * whichever is first. If the calling thread is interrupted, the searches are
+	 * cancelled and the interrupt is kept.
+	 * 
+	 * @param game The game to evaluate the moves in. It is not changed.
+	 * @param performer The player making the moves, the game's player or computer player.
+	 * @param moves The encoded moves.
+	 * @param n The number of moves.
+	 * @param search The search strategy to score positions with.
+	 * @return For each move, the score at each depth (NaN for those not reached), or
+	 * null for a move that is not legal or that was not scored in time.
+	 */
+	public double[][] evaluateDepths(GameMode game, Player performer, int[] moves, int n, SearchStrategy search) {
+		long millis = search.getMillis();
+		long deadline = millis > 0 ? deadline(millis) : Long.MAX_VALUE; // only nodes limit a search without time
+		boolean player = performer == game.getPlayer();
+		List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
+		double[][] values = new double[n][];
+		
+		// Snapshots are taken here, as taking one marks the game's tiles as shared
+		for(int i = 0; i < n; i++)
+			tasks.add(new Evaluation(game.snapshot(), search, player, moves[i], deadline));
+		
+		try {
+			List<Future<double[]>> results = millis > 0
+					? executor.invokeAll(tasks, millis + GRACE_MILLIS, TimeUnit.MILLISECONDS) : executor.invokeAll(tasks);
+			
+			for(int i = 0; i < n; i++) {
+				try {
+					values[i] = results.get(i).get();
+				} catch(CancellationException e) {
+					values[i] = null;
+				} catch(ExecutionException e) {
+					values[i] = null;
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Get the System.nanoTime() a number of milliseconds from now, or Long.MAX_VALUE
+	 * if that is too far off to represent.
+	 */
+	private static long deadline(long millis) {
+		long now = System.nanoTime();
+		long nanos = millis < Long.MAX_VALUE / 1000000L ? millis * 1000000L : Long.MAX_VALUE;
+		long deadline = now + nanos;
+		
+		// The sum overflows past Long.MAX_VALUE when the deadline is that far off
+		return deadline < now ? Long.MAX_VALUE : deadline;
+	}
+	
+	/**
+	 * Stop the service's threads. The service can't be used afterwards.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Get the search strategy positions are scored with.
+	 */
+	public SearchStrategy getSearch() {
+		return search;
+	}
+	
+	/**
+	 * Scores one move on its own snapshot of the game.
+	 */
+	private class Evaluation implements Callable<double[]> {
+		
+		private GameMode game;
+		private SearchStrategy search;
+		private boolean player;
+		private int move;
+		private long deadline;
+		
+		private Evaluation(GameMode game, SearchStrategy search, boolean player, int move, long deadline) {
+			this.game = game;
+			this.search = search;
+			this.player = player;
+			this.move = move;
+			this.deadline = deadline;
+		}
+		
+		/**
+		 * Make the move and score the result at every depth reached, or return null
+		 * if the move is not legal.
+		 */
+		public double[] call() {
+			Player performer = player ? game.getPlayer() : game.getComputerPlayer();
+			double[] values = new double[SearchStrategy.getMaxDepth() + 1];
+			
+			if(game.tryApply(move, performer) != Move.LEGAL)
+				return null;
+			
+			if(player && Move.isInsert(move)) {
+				Board board = game.getBoard();
+				int[] treasure = board.getTreasurePos();
+				
+				if(board.isReachable(treasure[0], treasure[1])) {
+					Arrays.fill(values, -SearchStrategy.WIN);
+					return values;
+				}
+				
+				// Move the token as close to the treasure as it can get
+				int closest = Evaluator.closestReachable(board);
+				game.tryApply(Move.moveTo(board.getColumn(closest), board.getRow(closest)), performer);
+			}
+			
+			search.score(game, !player, deadline, values);
+			return values;
+		}
+		
+	}
+
+}
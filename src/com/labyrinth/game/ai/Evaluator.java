@@ -0,0 +1,244 @@
+package com.labyrinth.game.ai;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Scores positions from the computer player's point of view, i.e. higher scores
+ * mean the player's token is further from the treasure. A position is scored with
+ * the player about to move, using three weighted features:
+ * 
+ * distance  the fewest tiles between the treasure and a tile the token can reach
+ * reach     the number of tiles the token can reach (counts against the computer)
+ * lines     the number of movable lines through the treasure (counts against the
+ *           computer, as the player can shift the treasure towards the token)
+ * 
+ * Distances are measured around the edges of the board, as the token wraps.
+ * 
+ * The weights can be saved to and loaded from a file (e.g. after tuning them), and
+ * the weights loaded at startup become the default for every new evaluator.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Evaluator {
+	
+	private double distanceWeight;
+	private double reachWeight;
+	private double lineWeight;
+	
+	private static volatile Evaluator defaults = new Evaluator(1.0, 0.05, 0.5);
+	
+	/**
+	 * Construct an evaluator with the default weights.
+	 */
+	public Evaluator() {
+		this(defaults.distanceWeight, defaults.reachWeight, defaults.lineWeight);
+	}
+	
+	/**
+	 * Construct an evaluator with the specified weights.
+	 * 
+	 * @param distanceWeight The score for each tile between the treasure and the token.
+	 * @param reachWeight The score taken off for each tile the token can reach.
+	 * @param lineWeight The score taken off for each movable line through the treasure.
+	 */
+	public Evaluator(double distanceWeight, double reachWeight, double lineWeight) {
+		this.distanceWeight = distanceWeight;
+		this.reachWeight = reachWeight;
+		this.lineWeight = lineWeight;
+	}
+	
+	/**
+	 * Score the position of a game, with the player about to move.
+	 * 
+	 * @param game The game to score.
+	 * @return The score, higher is better for the computer player.
+	 */
+	public double evaluate(GameMode game) {
+		Board board = game.getBoard();
+		int[] treasure = board.getTreasurePos();
+		int lines = 0;
+		
+		if(board.isMovableRow(treasure[1]))
+			lines++;
+		if(board.isMovableColumn(treasure[0]))
+			lines++;
+		
+		int distance = distance(board, closestReachable(board), treasure[0], treasure[1]);
+		
+		return distanceWeight * distance - reachWeight * board.getReachableCount() - lineWeight * lines;
+	}
+	
+	/**
+	 * Find the tile the token can reach that is closest to the treasure.
+	 * 
+	 * @param board The board to search.
+	 * @return The index of the closest reachable tile.
+	 */
+	public static int closestReachable(Board board) {
+		long[] reachable = board.getReachable();
+		int[] treasure = board.getTreasurePos();
+		int closest = -1;
+		int closestDistance = Integer.MAX_VALUE;
+		
+		for(int i = 0; i < reachable.length; i++) {
+			long bits = reachable[i];
+			
+			while(bits != 0) {
+				int index = i * 64 + Long.numberOfTrailingZeros(bits);
+				int d = distance(board, index, treasure[0], treasure[1]);
+				
+				if(d < closestDistance) {
+					closest = index;
+					closestDistance = d;
+				}
+				
+				bits &= bits - 1;
+			}
+		}
+		
+		return closest;
+	}
+	
+	/**
+	 * Get the number of tiles between a cell and a tile, going around the edges of
+	 * the board where that is shorter.
+	 * 
+	 * @param board The board.
+	 * @param index The index of the cell.
+	 * @param column The column of the tile.
+	 * @param row The row of the tile.
+	 */
+	public static int distance(Board board, int index, int column, int row) {
+		int dc = Math.abs(board.getColumn(index) - column);
+		int dr = Math.abs(board.getRow(index) - row);
+		
+		return Math.min(dc, board.getWidth() - dc) + Math.min(dr, board.getHeight() - dr);
+	}
+	
+	/**
+	 * Load weights from a file in the format of:
+	 * 
+	 * DISTANCE <weight>
+	 * REACH <weight>
+	 * LINES <weight>
+	 * 
+	 * Any weight not in the file is the default weight.
+	 * 
+	 * @param path The path to the weights file.
+	 * @return An evaluator with the weights.
+	 * @throws IOException Thrown when the file is not found or invalid.
+	 */
+	public static Evaluator load(String path) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		double distance = defaults.distanceWeight;
+		double reach = defaults.reachWeight;
+		double lines = defaults.lineWeight;
+		
+		try {
+			String line = reader.readLine();
+			
+			while(line != null) {
+				String[] entry = line.trim().split(" ");
+				
+				if(entry[0].length() == 0) {
+					// Empty line, just skip
+					line = reader.readLine();
+					continue;
+				}
+				
+				if(entry.length < 2)
+					throw new IOException("Invalid entry in weights file!");
+				
+				double weight;
+				
+				try {
+					weight = Double.parseDouble(entry[1]);
+				} catch(NumberFormatException e) {
+					throw new IOException("Weights file is invalid: '" + entry[0] + "' contains invalid value.");
+				}
+				
+				if(entry[0].equals("DISTANCE"))
+					distance = weight;
+				else if(entry[0].equals("REACH"))
+					reach = weight;
+				else if(entry[0].equals("LINES"))
+					lines = weight;
+				else
+					throw new IOException("Weights file is invalid: '" + entry[0] + "' is an invalid type.");
+				
+				line = reader.readLine();
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return new Evaluator(distance, reach, lines);
+	}
+	
+	/**
+	 * Save the weights to a file, in the format load() reads.
+	 * 
+	 * @param path The path to the weights file.
+	 * @throws IOException Thrown when can't write to file.
+	 */
+	public void save(String path) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(path));
+		
+		writer.write("DISTANCE " + distanceWeight);
+		writer.newLine();
+		writer.write("REACH " + reachWeight);
+		writer.newLine();
+		writer.write("LINES " + lineWeight);
+		writer.newLine();
+		
+		writer.close();
+	}
+	
+	/**
+	 * Set the weights new evaluators are constructed with.
+	 * 
+	 * @param evaluator The evaluator whose weights to use.
+	 */
+	public static void setDefault(Evaluator evaluator) {
+		defaults = evaluator;
+	}
+	
+	/**
+	 * Get an evaluator with the weights new evaluators are constructed with.
+	 */
+	public static Evaluator getDefault() {
+		return defaults;
+	}
+	
+	/**
+	 * Get the weight of the distance between the token and the treasure.
+	 */
+	public double getDistanceWeight() {
+		return distanceWeight;
+	}
+	
+	/**
+	 * Get the weight of the number of tiles the token can reach.
+	 */
+	public double getReachWeight() {
+		return reachWeight;
+	}
+	
+	/**
+	 * Get the weight of the number of movable lines through the treasure.
+	 */
+	public double getLineWeight() {
+		return lineWeight;
+	}
+
+}
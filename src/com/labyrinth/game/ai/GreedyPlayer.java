@@ -0,0 +1,146 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Plays as the player by looking one move ahead: the insert (with rotations) that
+ * lets the token reach the treasure if there is one, otherwise the one that lets it
+ * get closest, and then the reachable tile closest to the treasure.
+ * 
+ * Played out against a computer player that gets in the way as much as it can in
+ * one move, it also gives a quick estimate of the rounds a player needs to reach
+ * the treasure (see playOut()).
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class GreedyPlayer implements PlayerStrategy {
+	
+	/**
+	 * Try every insert and choose the one that leaves the token closest to the
+	 * treasure. Inserts are tried on the game and taken back with undo().
+	 */
+	public int chooseInsert(GameMode game) {
+		Board board = game.getBoard();
+		Player player = game.getPlayer();
+		int[] moves = new int[game.getMaxMoves()];
+		int n = game.generateInserts(moves, 0, player, true);
+		int best = 0;
+		int bestDistance = Integer.MAX_VALUE;
+		
+		for(int i = 0; i < n; i++) {
+			game.tryApply(moves[i], player);
+			int[] treasure = board.getTreasurePos();
+			int distance = Evaluator.distance(board, Evaluator.closestReachable(board), treasure[0], treasure[1]);
+			game.undo();
+			
+			if(distance < bestDistance) {
+				best = moves[i];
+				bestDistance = distance;
+				
+				if(distance == 0)
+					break;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Choose the reachable tile closest to the treasure.
+	 */
+	public int chooseTarget(GameMode game) {
+		Board board = game.getBoard();
+		int closest = Evaluator.closestReachable(board);
+		int[] token = board.getTokenPos();
+		
+		if(closest == board.getIndex(token[0], token[1]))
+			return 0;
+		
+		return Move.moveTo(board.getColumn(closest), board.getRow(closest));
+	}
+	
+	/**
+	 * Choose the computer player's insert that leaves the closest reachable tile
+	 * furthest from the treasure.
+	 */
+	private int chooseBlock(GameMode game) {
+		Board board = game.getBoard();
+		Player computer = game.getComputerPlayer();
+		int[] moves = new int[game.getMaxMoves()];
+		int n = game.generateInserts(moves, 0, computer, true);
+		int best = 0;
+		int bestDistance = -1;
+		
+		for(int i = 0; i < n; i++) {
+			game.tryApply(moves[i], computer);
+			int[] treasure = board.getTreasurePos();
+			int distance = Evaluator.distance(board, Evaluator.closestReachable(board), treasure[0], treasure[1]);
+			game.undo();
+			
+			if(distance > bestDistance) {
+				best = moves[i];
+				bestDistance = distance;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Play the game out greedily, with the computer player replying to each of the
+	 * player's rounds with the insert that leaves the token's closest reachable tile
+	 * furthest from the treasure, until the token reaches the treasure, and then take
+	 * every move back. Each round only costs one reachability check per insert for
+	 * each side, so it is cheap enough to check every new game with. Reaching the
+	 * treasure shows a player never needs more rounds against that computer player,
+	 * but failing to doesn't prove it can't be done (see Solver for that).
+	 * 
+	 * @param game The game, with the player about to make their tile move. It is left
+	 * as it was.
+	 * @param maxRounds The most rounds to play.
+	 * @return The number of rounds played, 0 if the player has already won, or -1 if
+	 * the treasure wasn't reached within maxRounds.
+	 */
+	public int playOut(GameMode game, int maxRounds) {
+		Player player = game.getPlayer();
+		int start = game.getJournalSize();
+		int rounds = -1;
+		
+		if(game.hasWon())
+			return 0;
+		
+		for(int round = 1; round <= maxRounds; round++) {
+			int insert = chooseInsert(game);
+			
+			if(insert != 0)
+				game.tryApply(insert, player);
+			
+			int target = chooseTarget(game);
+			
+			if(target != 0)
+				game.tryApply(target, player);
+			
+			if(game.hasWon()) {
+				rounds = round;
+				break;
+			}
+			
+			int block = chooseBlock(game);
+			
+			if(block != 0)
+				game.tryApply(block, game.getComputerPlayer());
+		}
+		
+		while(game.getJournalSize() > start)
+			game.undo();
+		
+		return rounds;
+	}
+
+}
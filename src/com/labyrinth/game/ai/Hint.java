@@ -0,0 +1,104 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.Move;
+
+/**
+ * The best move a HintEngine has found so far for the player: either a tile move
+ * followed by the tile to take the token to, or just the tile to take the token to
+ * if the tile move has already been made. A goto the token takes no steps along is
+ * the token staying where it is, which the player does by ending their token move.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Hint {
+	
+	private int move;
+	private int target;
+	private int steps;
+	private int depth;
+	private boolean win;
+	
+	/**
+	 * Construct a hint.
+	 * 
+	 * @param move The encoded move to make (see Move).
+	 * @param target The encoded goto to make after it, or 0 if there is none.
+	 * @param steps The number of tiles the token moves along its path.
+	 * @param depth The number of moves searched after the hint to find it.
+	 * @param win Whether the hint reaches the treasure.
+	 */
+	public Hint(int move, int target, int steps, int depth, boolean win) {
+		this.move = move;
+		this.target = target;
+		this.steps = steps;
+		this.depth = depth;
+		this.win = win;
+	}
+	
+	/**
+	 * Get the encoded move to make (see Move).
+	 */
+	public int getMove() {
+		return move;
+	}
+	
+	/**
+	 * Get the encoded goto to make after the move, or 0 if there is none.
+	 */
+	public int getTarget() {
+		return target;
+	}
+	
+	/**
+	 * Get the number of tiles the token moves along its path.
+	 */
+	public int getSteps() {
+		return steps;
+	}
+	
+	/**
+	 * Get the number of moves searched after the hint to find it.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	
+	/**
+	 * Check whether the hint reaches the treasure.
+	 */
+	public boolean isWin() {
+		return win;
+	}
+	
+	/**
+	 * Describe the hint as the commands to enter, e.g.
+	 * "rotate 90, insert row left 2, then goto 3 4 (5 tiles)", or
+	 * "insert row left 2, then done (stay put)".
+	 */
+	public String toString() {
+		String hint = describe(move);
+		
+		if(target != 0)
+			hint += ", then " + describe(target);
+		if(steps > 0)
+			hint += " (" + steps + (steps == 1 ? " tile)" : " tiles)");
+		if(win)
+			hint += " to reach the treasure";
+		
+		return hint;
+	}
+	
+	/**
+	 * Describe one move, a goto of no steps being the token staying where it is.
+	 */
+	private String describe(int move) {
+		if(Move.getKind(move) == Move.GOTO && steps == 0)
+			return "done (stay put)";
+		
+		return Move.toString(move);
+	}
+
+}
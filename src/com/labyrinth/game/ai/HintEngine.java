@@ -0,0 +1,307 @@
+package com.labyrinth.game.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Works out the player's best move on a background thread while they think, so a
+ * hint can be given straight away. The engine analyses a snapshot of the position
+ * it was last given, refining its answer in passes with double the search budget
+ * each time, and keeps the best hint of the last finished pass.
+ * 
+ * Before the tile move, every insert (with rotations) is tried, the token is moved
+ * as close to the treasure as it can get, and the computer player's best reply is
+ * searched. After the tile move, every tile the token can reach is tried instead.
+ * The moves are searched by an EvaluationService and compared at the deepest depth
+ * every one of them was searched to. The searches run on the engine's own pool of
+ * low priority daemon threads, one fewer than there are processors (but at least
+ * one), so a processor is left for the game and the computer player's search.
+ * 
+ * Giving the engine a different position cancels the analysis and starts again.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class HintEngine implements Runnable {
+	
+	private static final long FIRST_PASS_NODES = 256; // nodes per move in the first pass
+	private static final long LAST_PASS_NODES = 1L << 22;
+	private static final long DEFAULT_TABLE_BYTES = 8L << 20;
+	
+	private Evaluator evaluator;
+	private TranspositionTable table; // shared by the searches of every move
+	private EvaluationService service;
+	private Thread thread;
+	
+	private Object lock = new Object();
+	private GameMode pending; // the next position to analyse, guarded by lock
+	private long key; // of the position being analysed, guarded by lock
+	private int generation; // changes whenever the position does, guarded by lock
+	private boolean running;
+	
+	private volatile Hint hint;
+	
+	/**
+	 * Construct a hint engine and start its thread, which waits for a position.
+	 * 
+	 * @param evaluator The evaluator to score positions with.
+	 */
+	public HintEngine(Evaluator evaluator) {
+		this.evaluator = evaluator;
+		this.table = new TranspositionTable(DEFAULT_TABLE_BYTES);
+		this.service = new EvaluationService(new SearchStrategy(0, FIRST_PASS_NODES, evaluator, table),
+				Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "labyrinth-hints-search");
+						t.setDaemon(true);
+						t.setPriority(Thread.MIN_PRIORITY);
+						return t;
+					}
+				}));
+		this.running = true;
+		this.thread = new Thread(this, "labyrinth-hints");
+		this.thread.setDaemon(true);
+		this.thread.setPriority(Thread.MIN_PRIORITY);
+		this.thread.start();
+	}
+	
+	/**
+	 * Start analysing a game's current position, unless it is already being analysed.
+	 * The player must be about to make their tile move or their token move. The game
+	 * is not changed.
+	 * 
+	 * @param game The game to analyse.
+	 */
+	public void analyse(GameMode game) {
+		boolean tileMove = !game.getCurrentMove().equals("token");
+		long position = SearchStrategy.positionKey(game, tileMove);
+		
+		synchronized(lock) {
+			if(position == key)
+				return;
+			
+			// Snapshots are taken here, as taking one marks the game's tiles as shared
+			pending = game.snapshot();
+			pending.setCurrentMove(tileMove ? "tile" : "token");
+			key = position;
+			restart();
+		}
+	}
+	
+	/**
+	 * Stop analysing, e.g. while the computer player moves. The last hint is thrown away.
+	 */
+	public void cancel() {
+		synchronized(lock) {
+			pending = null;
+			key = 0;
+			restart();
+		}
+	}
+	
+	/**
+	 * Stop the engine's threads. The engine can't be used afterwards.
+	 */
+	public void shutdown() {
+		synchronized(lock) {
+			running = false;
+			pending = null;
+			restart();
+		}
+	}
+	
+	/**
+	 * Get the best hint found so far for the position last given to analyse().
+	 * 
+	 * @return The hint, or null if the first pass hasn't finished yet.
+	 */
+	public Hint getHint() {
+		return hint;
+	}
+	
+	/**
+	 * Throw away the current analysis and wake the thread. Must hold the lock.
+	 */
+	private void restart() {
+		generation++;
+		hint = null;
+		thread.interrupt(); // stops a search part way through
+		lock.notifyAll();
+	}
+	
+	/**
+	 * Wait for positions and analyse them, until shut down.
+	 */
+	public void run() {
+		while(true) {
+			GameMode game;
+			int current;
+			
+			synchronized(lock) {
+				while(running && pending == null) {
+					try {
+						lock.wait();
+					} catch(InterruptedException e) {
+						// Woken up to look for a new position
+					}
+				}
+				
+				if(!running) {
+					service.shutdown();
+					return;
+				}
+				
+				game = pending;
+				current = generation;
+				pending = null;
+				
+				// Any interrupt so far was meant for the analysis before this one
+				Thread.interrupted();
+			}
+			
+			analyse(game, current);
+		}
+	}
+	
+	/**
+	 * Analyse a position in passes until the result is certain, the budget is spent or
+	 * the position changes.
+	 * 
+	 * @param game The snapshot to analyse.
+	 * @param current The generation the position belongs to.
+	 */
+	private void analyse(GameMode game, int current) {
+		Board board = game.getBoard();
+		Player player = game.getPlayer();
+		boolean tileMove = game.getCurrentMove().equals("tile");
+		int[] moves = new int[Math.max(game.getMaxMoves(), board.getWidth() * board.getHeight())];
+		int n = tileMove ? game.generateInserts(moves, 0, player, true) : generateTargets(board, moves);
+		int[] targets = new int[n];
+		int[] steps = new int[n];
+		boolean[] wins = new boolean[n];
+		
+		if(n == 0)
+			return;
+		
+		// Work out where each move takes the token, and whether it wins
+		for(int i = 0; i < n; i++) {
+			int applied = game.getJournalSize();
+			
+			if(tileMove) {
+				game.tryApply(moves[i], player);
+				
+				// Take the token to the treasure, or as close to it as it can get
+				int[] treasure = board.getTreasurePos();
+				int closest = board.isReachable(treasure[0], treasure[1])
+						? board.getIndex(treasure[0], treasure[1]) : Evaluator.closestReachable(board);
+				targets[i] = Move.moveTo(board.getColumn(closest), board.getRow(closest));
+				steps[i] = board.findPath(board.getColumn(closest), board.getRow(closest), null);
+				game.tryApply(targets[i], player);
+			} else {
+				steps[i] = board.findPath(Move.getLine(moves[i]), Move.getRow(moves[i]), null);
+				game.tryApply(moves[i], player);
+			}
+			
+			wins[i] = game.hasWon();
+			
+			while(game.getJournalSize() > applied)
+				game.undo();
+		}
+		
+		for(long nodes = FIRST_PASS_NODES; nodes <= LAST_PASS_NODES; nodes *= 2) {
+			SearchStrategy search = new SearchStrategy(0, nodes, evaluator, table);
+			double[][] values = service.evaluateDepths(game, player, moves, n, search);
+			boolean certain = true;
+			
+			if(!isCurrent(current))
+				return;
+			
+			for(int i = 0; i < n; i++) {
+				if(wins[i]) {
+					values[i] = new double[SearchStrategy.getMaxDepth() + 1];
+					Arrays.fill(values[i], -SearchStrategy.WIN);
+				} else if(values[i] == null) {
+					// Only an interrupted search has no result, and then the position has changed
+					return;
+				} else if(Double.isNaN(values[i][SearchStrategy.getMaxDepth()])) {
+					certain = false;
+				}
+			}
+			
+			Hint best = publish(moves, targets, steps, wins, values, n, current);
+			
+			if(certain || best == null || best.isWin())
+				return;
+		}
+	}
+	
+	/**
+	 * Make the best move of a finished pass the hint, unless the position has changed.
+	 * 
+	 * @return The hint, or null if the position has changed.
+	 */
+	private Hint publish(int[] moves, int[] targets, int[] steps, boolean[] wins, double[][] values, int n, int current) {
+		int depth = SearchStrategy.getMaxDepth();
+		int best = 0;
+		
+		// Find the deepest depth every move was searched to
+		for(int i = 0; i < n; i++) {
+			while(depth > 0 && Double.isNaN(values[i][depth]))
+				depth--;
+		}
+		
+		for(int i = 1; i < n; i++) {
+			if(values[i][depth] < values[best][depth])
+				best = i;
+		}
+		
+		synchronized(lock) {
+			if(generation != current)
+				return null;
+			
+			hint = new Hint(moves[best], targets[best], Math.max(steps[best], 0), depth, wins[best]);
+			return hint;
+		}
+	}
+	
+	/**
+	 * Write a goto for every tile the token can reach, including the one it is on,
+	 * which is the token staying where it is (see Hint).
+	 * 
+	 * @return The number of moves written.
+	 */
+	private static int generateTargets(Board board, int[] moves) {
+		long[] reachable = board.getReachable();
+		int n = 0;
+		
+		for(int i = 0; i < reachable.length; i++) {
+			long bits = reachable[i];
+			
+			while(bits != 0) {
+				int index = i * 64 + Long.numberOfTrailingZeros(bits);
+				moves[n++] = Move.moveTo(board.getColumn(index), board.getRow(index));
+				bits &= bits - 1;
+			}
+		}
+		
+		return n;
+	}
+	
+	/**
+	 * Check whether the position being analysed is still the latest.
+	 */
+	private boolean isCurrent(int current) {
+		synchronized(lock) {
+			return generation == current && running;
+		}
+	}
+
+}
@@ -0,0 +1,428 @@
+package com.labyrinth.game.ai;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Chooses the computer player's insert with Monte Carlo Tree Search, running on a
+ * number of threads at once. Each thread grows its own tree on its own snapshot of
+ * the game (root parallelisation) and the visit counts of the root moves are added
+ * together at the end, the most visited move being chosen.
+ * 
+ * A playout plays random inserts for both sides, the player moving the token to the
+ * reachable tile closest to the treasure after each of theirs, for up to a fixed
+ * number of rounds. It scores the fraction of those rounds the player goes without
+ * reaching the treasure, so the computer player prefers moves that hold the player
+ * off for longest.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class MctsStrategy implements Strategy {
+	
+	private static final int PLAYOUT_ROUNDS = 8;
+	private static final double EXPLORATION = 0.7;
+	private static final long DEFAULT_MILLIS = 1000; // when there is no limit at all
+	
+	private long millis;
+	private long playouts;
+	private int threads;
+	private ForkJoinPool pool;
+	private boolean ownPool; // whether shutdown() stops the pool
+	
+	/**
+	 * Construct an MCTS strategy.
+	 * 
+	 * @param millis The time to search for each move, in milliseconds (0 for no limit).
+	 * @param playouts The number of playouts for each move, over all threads (0 for no limit).
+	 * If neither is limited the search is given a second.
+	 * @param threads The number of threads to search with (0 for one per processor).
+	 */
+	public MctsStrategy(long millis, long playouts, int threads) {
+		this(millis, playouts, threads, null);
+	}
+	
+	/**
+	 * Construct an MCTS strategy that searches on a pool shared with other strategies.
+	 * The pool is not stopped by shutdown(), so the strategy needn't be shut down.
+	 * 
+	 * @param millis The time to search for each move, in milliseconds (0 for no limit).
+	 * @param playouts The number of playouts for each move, over all threads (0 for no limit).
+	 * If neither is limited the search is given a second.
+	 * @param threads The number of threads to search with (0 for one per processor).
+	 * @param pool The pool to search on, or null for one of the strategy's own.
+	 */
+	public MctsStrategy(long millis, long playouts, int threads, ForkJoinPool pool) {
+		this.millis = millis;
+		this.playouts = playouts;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.ownPool = pool == null;
+		this.pool = ownPool ? new ForkJoinPool(this.threads) : pool;
+	}
+	
+	/**
+	 * Search for the computer player's best insert within the budget, on every thread.
+	 * Interrupting the calling thread stops the search early.
+	 */
+	public int chooseMove(GameMode game) {
+		int[] root = new int[game.getMaxMoves()];
+		int n = game.generateInserts(root, 0, game.getComputerPlayer(), true);
+		
+		if(n <= 1)
+			return n == 0 ? 0 : root[0];
+		
+		long time = millis > 0 ? millis : (playouts > 0 ? 0 : DEFAULT_MILLIS);
+		long deadline = time > 0 ? System.nanoTime() + time * 1000000L : Long.MAX_VALUE;
+		
+		// Snapshots are taken here, as taking one marks the game's tiles as shared
+		Worker[] workers = new Worker[threads];
+		
+		for(int i = 0; i < threads; i++) {
+			long budget = playouts > 0 ? Math.max(1, (playouts + i) / threads) : Long.MAX_VALUE;
+			workers[i] = new Worker(game.snapshot(), deadline, budget);
+		}
+		
+		Root search = new Root(workers);
+		long[] visits;
+		
+		pool.execute(search);
+		
+		try {
+			visits = search.get();
+		} catch(InterruptedException e) {
+			// Stop early, but still choose from the playouts so far
+			for(Worker worker : workers)
+				worker.stopped = true;
+			
+			visits = search.join();
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		
+		int best = 0;
+		
+		for(int i = 1; i < n; i++) {
+			if(visits[i] > visits[best])
+				best = i;
+		}
+		
+		return root[best];
+	}
+	
+	/**
+	 * Stop the threads used for searching, unless the pool is shared. The strategy
+	 * can't be used afterwards.
+	 */
+	public void shutdown() {
+		if(ownPool)
+			pool.shutdown();
+	}
+	
+	/**
+	 * Get the time to search for each move, in milliseconds.
+	 */
+	public long getMillis() {
+		return millis;
+	}
+	
+	/**
+	 * Get the number of playouts for each move.
+	 */
+	public long getPlayouts() {
+		return playouts;
+	}
+	
+	/**
+	 * Get the number of threads searched with.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Runs every worker and adds up their root visit counts.
+	 */
+	private static class Root extends RecursiveTask<long[]> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private Worker[] workers;
+		
+		private Root(Worker[] workers) {
+			this.workers = workers;
+		}
+		
+		protected long[] compute() {
+			invokeAll(workers);
+			
+			long[] total = null;
+			
+			for(Worker worker : workers) {
+				long[] visits = worker.join();
+				
+				if(total == null)
+					total = visits;
+				else
+					for(int i = 0; i < total.length; i++)
+						total[i] += visits[i];
+			}
+			
+			return total;
+		}
+		
+	}
+	
+	/**
+	 * Grows a search tree on one snapshot of the game. Nodes are kept in parallel
+	 * arrays, with the children of a node next to each other. The root is node 0 and
+	 * has the computer player to move, after which the sides take turns.
+	 */
+	private static class Worker extends RecursiveTask<long[]> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private GameMode game;
+		private Board board;
+		private Player player;
+		private Player computer;
+		private long deadline;
+		private long budget;
+		private volatile boolean stopped; // set to end the search early
+		private SplittableRandom rand; // the snapshot's, so only used by this worker
+		
+		// Tree nodes
+		private int[] moves;
+		private int[] firstChild;
+		private int[] children; // -1 until the node is expanded
+		private long[] visits;
+		private double[] score; // total for the computer player
+		private boolean[] won; // whether the player reaches the treasure after this move
+		private int size;
+		
+		private int[] buffer; // for generating moves
+		private int[] path;
+		
+		private Worker(GameMode game, long deadline, long budget) {
+			this.game = game;
+			this.board = game.getBoard();
+			this.player = game.getPlayer();
+			this.computer = game.getComputerPlayer();
+			this.deadline = deadline;
+			this.budget = budget;
+			this.rand = game.getRandom();
+			this.buffer = new int[game.getMaxMoves()];
+			this.path = new int[64];
+			
+			int capacity = 1024;
+			moves = new int[capacity];
+			firstChild = new int[capacity];
+			children = new int[capacity];
+			visits = new long[capacity];
+			score = new double[capacity];
+			won = new boolean[capacity];
+			
+			children[0] = -1;
+			size = 1;
+		}
+		
+		/**
+		 * Run playouts until the budget is spent.
+		 * 
+		 * @return The number of visits to each of the root moves.
+		 */
+		protected long[] compute() {
+			expand(0, false);
+			
+			for(long i = 0; i < budget; i++) {
+				if((i & 63) == 0 && (System.nanoTime() > deadline || stopped))
+					break;
+				
+				iterate();
+			}
+			
+			long[] result = new long[children[0]];
+			
+			for(int i = 0; i < result.length; i++)
+				result[i] = visits[firstChild[0] + i];
+			
+			return result;
+		}
+		
+		/**
+		 * Select a path down the tree, expand its end, play out from there and add
+		 * the result to every node on the path.
+		 */
+		private void iterate() {
+			int node = 0;
+			int depth = 0;
+			int applied = game.getJournalSize();
+			double result;
+			
+			path[depth++] = node;
+			
+			while(true) {
+				boolean playerToMove = (depth & 1) == 0;
+				
+				if(children[node] < 0) {
+					if(visits[node] == 0)
+						break;
+					
+					expand(node, playerToMove);
+				}
+				
+				if(children[node] == 0 || depth == path.length)
+					break;
+				
+				node = select(node, playerToMove);
+				
+				if(playerToMove)
+					won[node] = moveTokenAfter(moves[node]);
+				else
+					game.tryApply(moves[node], computer);
+				
+				path[depth++] = node;
+				
+				if(won[node])
+					break;
+			}
+			
+			// The player has made one insert for every two moves from the root
+			int rounds = (depth - 1) / 2;
+			
+			if(won[node])
+				result = Math.min(1.0, (double) (rounds - 1) / PLAYOUT_ROUNDS);
+			else
+				result = playout(Math.min(rounds, PLAYOUT_ROUNDS), (depth & 1) == 0);
+			
+			for(int i = 0; i < depth; i++) {
+				visits[path[i]]++;
+				score[path[i]] += result;
+			}
+			
+			while(game.getJournalSize() > applied)
+				game.undo();
+		}
+		
+		/**
+		 * Choose the child with the best upper confidence bound for the side to move.
+		 */
+		private int select(int node, boolean playerToMove) {
+			double logVisits = Math.log(visits[node] + 1);
+			int best = firstChild[node];
+			double bestBound = -1;
+			
+			for(int child = firstChild[node]; child < firstChild[node] + children[node]; child++) {
+				if(visits[child] == 0)
+					return child;
+				
+				double mean = score[child] / visits[child];
+				
+				if(playerToMove)
+					mean = 1 - mean;
+				
+				double bound = mean + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+				
+				if(bound > bestBound) {
+					best = child;
+					bestBound = bound;
+				}
+			}
+			
+			return best;
+		}
+		
+		/**
+		 * Add a child to a node for every legal insert of the side to move.
+		 */
+		private void expand(int node, boolean playerToMove) {
+			int n = game.generateInserts(buffer, 0, playerToMove ? player : computer, true);
+			
+			if(size + n > moves.length)
+				grow(Math.max(moves.length * 2, size + n));
+			
+			firstChild[node] = size;
+			children[node] = n;
+			
+			for(int i = 0; i < n; i++) {
+				moves[size] = buffer[i];
+				children[size] = -1;
+				visits[size] = 0;
+				score[size] = 0;
+				won[size] = false;
+				size++;
+			}
+		}
+		
+		/**
+		 * Make a player insert and, unless it wins, move the token as close to the
+		 * treasure as it can get. Marks the node if the player wins.
+		 */
+		private boolean moveTokenAfter(int move) {
+			game.tryApply(move, player);
+			
+			int[] treasure = board.getTreasurePos();
+			
+			if(board.isReachable(treasure[0], treasure[1]))
+				return true;
+			
+			int closest = Evaluator.closestReachable(board);
+			game.tryApply(Move.moveTo(board.getColumn(closest), board.getRow(closest)), player);
+			
+			return false;
+		}
+		
+		/**
+		 * Play random inserts from the current position.
+		 * 
+		 * @param rounds The number of rounds the player has already gone without the treasure.
+		 * @param playerToMove Whether it is the player's move, otherwise the computer's.
+		 * @return The fraction of the playout rounds the player went without the treasure.
+		 */
+		private double playout(int rounds, boolean playerToMove) {
+			while(rounds < PLAYOUT_ROUNDS) {
+				if(playerToMove) {
+					int n = game.generateInserts(buffer, 0, player, true);
+					
+					if(n > 0 && moveTokenAfter(buffer[rand.nextInt(n)]))
+						break;
+					
+					rounds++;
+				} else {
+					int n = game.generateInserts(buffer, 0, computer, true);
+					
+					if(n > 0)
+						game.tryApply(buffer[rand.nextInt(n)], computer);
+				}
+				
+				playerToMove = !playerToMove;
+			}
+			
+			return (double) rounds / PLAYOUT_ROUNDS;
+		}
+		
+		/**
+		 * Make room for more nodes.
+		 */
+		private void grow(int capacity) {
+			moves = Arrays.copyOf(moves, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			children = Arrays.copyOf(children, capacity);
+			visits = Arrays.copyOf(visits, capacity);
+			score = Arrays.copyOf(score, capacity);
+			won = Arrays.copyOf(won, capacity);
+		}
+		
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Represents a way for the player to choose their moves when the game is played
+ * without a user interface, e.g. in simulations.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public interface PlayerStrategy {
+	
+	/**
+	 * Choose the player's tile move. The game must not be changed, so a strategy that
+	 * needs to try moves should work on a snapshot or undo them.
+	 * 
+	 * @param game The game, with the player about to make their tile move.
+	 * @return The encoded insert (see Move), or 0 if there is no legal insert.
+	 */
+	public int chooseInsert(GameMode game);
+	
+	/**
+	 * Choose the tile the player moves their token to after their tile move.
+	 * 
+	 * @param game The game, with the player about to make their token move.
+	 * @return The encoded goto (see Move), or 0 to leave the token where it is.
+	 */
+	public int chooseTarget(GameMode game);
+
+}
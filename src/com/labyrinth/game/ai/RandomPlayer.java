@@ -0,0 +1,71 @@
+package com.labyrinth.game.ai;
+
+import java.util.SplittableRandom;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Plays as the player with a random insert (with rotations), then moves the token
+ * to the reachable tile closest to the treasure. An unseeded random player draws
+ * from the game's random number generator, so it can be shared by games on many
+ * threads. Two random players with the same seed choose the same inserts for as
+ * long as they are shown the same positions, but a seeded player must only be used
+ * by one thread.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class RandomPlayer implements PlayerStrategy {
+	
+	private SplittableRandom rand; // null to use the game's
+	
+	/**
+	 * Construct a random player that uses the random number generator of the game
+	 * it plays in.
+	 */
+	public RandomPlayer() {
+		this.rand = null;
+	}
+	
+	/**
+	 * Construct a random player that makes the same choices as any other with the
+	 * same seed.
+	 * 
+	 * @param seed The seed for the random choices.
+	 */
+	public RandomPlayer(long seed) {
+		this.rand = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Choose a random legal insert.
+	 */
+	public int chooseInsert(GameMode game) {
+		int[] moves = new int[game.getMaxMoves()];
+		int n = game.generateInserts(moves, 0, game.getPlayer(), true);
+		
+		if(n == 0)
+			return 0;
+		
+		return moves[(rand != null ? rand : game.getRandom()).nextInt(n)];
+	}
+	
+	/**
+	 * Choose the reachable tile closest to the treasure.
+	 */
+	public int chooseTarget(GameMode game) {
+		Board board = game.getBoard();
+		int closest = Evaluator.closestReachable(board);
+		int[] token = board.getTokenPos();
+		
+		if(closest == board.getIndex(token[0], token[1]))
+			return 0;
+		
+		return Move.moveTo(board.getColumn(closest), board.getRow(closest));
+	}
+
+}
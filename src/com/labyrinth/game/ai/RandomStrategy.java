@@ -0,0 +1,22 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Chooses a random legal insert, the computer player's original behaviour.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class RandomStrategy implements Strategy {
+	
+	/**
+	 * Choose a random legal insert for the computer player.
+	 */
+	public int chooseMove(GameMode game) {
+		return game.getComputerPlayer().chooseInsert(game);
+	}
+
+}
@@ -0,0 +1,432 @@
+package com.labyrinth.game.ai;
+
+import java.util.Arrays;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Chooses the computer player's insert by searching ahead over the inserts (with
+ * rotations) of both sides, trying to keep the player's token as far as possible
+ * from the treasure. The search is iterative deepening alpha-beta: it searches one
+ * move ahead, then two, and so on until its time or node budget runs out, and then
+ * answers with the best move of the deepest search it got through.
+ * 
+ * After each player insert the player is assumed to win if the treasure can be
+ * reached, otherwise to move the token to the reachable tile closest to the
+ * treasure. Positions at the end of the search are scored by an Evaluator.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class SearchStrategy implements Strategy {
+	
+	// Scores for a player win, less the number of moves it takes (small enough to
+	// be stored exactly as a float in the transposition table)
+	static final double WIN = 1e6;
+	private static final int MAX_DEPTH = 32;
+	private static final long DEFAULT_MILLIS = 1000; // when there is no limit at all
+	private static final long DEFAULT_TABLE_BYTES = 8L << 20;
+	
+	// Keys for the parts of a position the board hash doesn't cover
+	private static final long PLAYER_TO_MOVE = 0x6A09E667F3BCC909L;
+	private static final long PLAYER_INSERT = 0x9E3779B97F4A7C15L;
+	private static final long COMPUTER_INSERT = 0xC2B2AE3D27D4EB4FL;
+	
+	private long millis;
+	private long nodes;
+	private Evaluator evaluator;
+	private TranspositionTable table;
+	
+	/**
+	 * Construct a search strategy with the default evaluator and an 8MB transposition
+	 * table.
+	 * 
+	 * @param millis The time to search for each move, in milliseconds (0 for no limit).
+	 * @param nodes The number of positions to search for each move (0 for no limit).
+	 * If neither is limited the search is given a second.
+	 */
+	public SearchStrategy(long millis, long nodes) {
+		this(millis, nodes, new Evaluator());
+	}
+	
+	/**
+	 * Construct a search strategy with an 8MB transposition table.
+	 * 
+	 * @param millis The time to search for each move, in milliseconds (0 for no limit).
+	 * @param nodes The number of positions to search for each move (0 for no limit).
+	 * @param evaluator The evaluator to score positions with.
+	 */
+	public SearchStrategy(long millis, long nodes, Evaluator evaluator) {
+		this(millis, nodes, evaluator, new TranspositionTable(DEFAULT_TABLE_BYTES));
+	}
+	
+	/**
+	 * Construct a search strategy.
+	 * 
+	 * @param millis The time to search for each move, in milliseconds (0 for no limit).
+	 * @param nodes The number of positions to search for each move (0 for no limit).
+	 * @param evaluator The evaluator to score positions with.
+	 * @param table The transposition table to keep results in between searches, which
+	 * may be shared with other strategies, or null for none.
+	 */
+	public SearchStrategy(long millis, long nodes, Evaluator evaluator, TranspositionTable table) {
+		this.millis = millis;
+		this.nodes = nodes;
+		this.evaluator = evaluator;
+		this.table = table;
+	}
+	
+	/**
+	 * Search for the computer player's best insert within the budget. A strategy can
+	 * be shared, as every search has its own snapshot of the game.
+	 */
+	public int chooseMove(GameMode game) {
+		return new Search(game.snapshot(), Long.MAX_VALUE).run();
+	}
+	
+	/**
+	 * Score a position from the computer player's point of view, searching it as
+	 * deeply as the budget allows. The game is searched in place and is left as it
+	 * was, so each thread must use its own snapshot.
+	 * 
+	 * @param game The game to score.
+	 * @param playerToMove Whether it is the player's move, otherwise the computer's.
+	 * @param deadline The System.nanoTime() to stop by, as well as the strategy's own budget.
+	 * @return The score of the deepest search finished, higher is better for the computer player.
+	 */
+	public double score(GameMode game, boolean playerToMove, long deadline) {
+		double[] values = new double[MAX_DEPTH + 1];
+		return values[new Search(game, deadline).value(playerToMove, values)];
+	}
+	
+	/**
+	 * Score a position from the computer player's point of view at every depth the
+	 * budget allows. Scores from different positions are only comparable at the
+	 * same depth, as a search that ends on the player's move is more pessimistic
+	 * than one that ends on the computer player's.
+	 * 
+	 * @param game The game to score, searched in place and left as it was.
+	 * @param playerToMove Whether it is the player's move, otherwise the computer's.
+	 * @param deadline The System.nanoTime() to stop by, as well as the strategy's own budget.
+	 * @param values Filled with the score at each depth, from 0 (the evaluator's score)
+	 * to getMaxDepth(), NaN for the depths not reached. A certain result fills every depth.
+	 * @return The deepest depth reached.
+	 */
+	public int score(GameMode game, boolean playerToMove, long deadline, double[] values) {
+		return new Search(game, deadline).value(playerToMove, values);
+	}
+	
+	/**
+	 * Get the deepest depth a search can go to.
+	 */
+	public static int getMaxDepth() {
+		return MAX_DEPTH;
+	}
+	
+	/**
+	 * Get the time to search for each move, in milliseconds.
+	 */
+	public long getMillis() {
+		return millis;
+	}
+	
+	/**
+	 * Get the number of positions to search for each move.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Get the evaluator positions are scored with.
+	 */
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+	
+	/**
+	 * Get the transposition table, null if there is none.
+	 */
+	public TranspositionTable getTable() {
+		return table;
+	}
+	
+	/**
+	 * A single search, played out on its own snapshot of the game with apply/undo.
+	 */
+	private class Search {
+		
+		private GameMode game;
+		private Board board;
+		private Player player;
+		private Player computer;
+		private int[][] moves; // move buffer for each ply
+		private long deadline;
+		private long count;
+		private boolean aborted;
+		
+		private Search(GameMode game, long deadline) {
+			this.game = game;
+			this.board = game.getBoard();
+			this.player = game.getPlayer();
+			this.computer = game.getComputerPlayer();
+			this.moves = new int[MAX_DEPTH + 1][game.getMaxMoves()];
+			
+			long time = millis > 0 ? millis : (nodes > 0 ? 0 : DEFAULT_MILLIS);
+			this.deadline = time > 0 ? System.nanoTime() + time * 1000000L : Long.MAX_VALUE;
+			
+			if(deadline < this.deadline)
+				this.deadline = deadline;
+		}
+		
+		/**
+		 * Deepen the search of the current position until the budget runs out or the
+		 * result is certain.
+		 * 
+		 * @param playerToMove Whether it is the player's move, otherwise the computer's.
+		 * @param values Filled with the score at each depth, NaN for those not reached.
+		 * @return The deepest depth reached.
+		 */
+		private int value(boolean playerToMove, double[] values) {
+			values[0] = evaluator.evaluate(game);
+			
+			for(int depth = 1; depth <= MAX_DEPTH; depth++) {
+				double score = search(depth, 0, playerToMove, -Double.MAX_VALUE, Double.MAX_VALUE);
+				
+				if(aborted) {
+					Arrays.fill(values, depth, MAX_DEPTH + 1, Double.NaN);
+					return depth - 1;
+				}
+				
+				values[depth] = score;
+				
+				if(Math.abs(score) > WIN / 2) {
+					Arrays.fill(values, depth, MAX_DEPTH + 1, score);
+					return MAX_DEPTH;
+				}
+			}
+			
+			return MAX_DEPTH;
+		}
+		
+		/**
+		 * Deepen the search until the budget runs out or the result is certain.
+		 * 
+		 * @return The best insert found, or 0 if there is no legal insert.
+		 */
+		private int run() {
+			int[] root = moves[0];
+			int n = game.generateInserts(root, 0, computer, true);
+			
+			if(n == 0)
+				return 0;
+			
+			int best = root[0];
+			
+			for(int depth = 1; depth <= MAX_DEPTH && !aborted; depth++) {
+				double alpha = -Double.MAX_VALUE;
+				int depthBest = 0;
+				
+				for(int i = 0; i < n; i++) {
+					game.tryApply(root[i], computer);
+					double score = search(depth - 1, 1, true, alpha, Double.MAX_VALUE);
+					game.undo();
+					
+					if(aborted)
+						break;
+					
+					if(score > alpha) {
+						alpha = score;
+						depthBest = i;
+					}
+				}
+				
+				// Moves finished at this depth are searched deeper than any before, so
+				// the best of them can be used even if the search was cut short
+				if(alpha > -Double.MAX_VALUE) {
+					best = root[depthBest];
+					
+					// Search the best move first next time round
+					root[depthBest] = root[0];
+					root[0] = best;
+				}
+				
+				// A forced win or loss won't change by searching deeper
+				if(Math.abs(alpha) > WIN / 2)
+					break;
+			}
+			
+			return best;
+		}
+		
+		/**
+		 * Search a position to a depth.
+		 * 
+		 * @param depth The number of moves left to search.
+		 * @param ply The number of moves made since the root.
+		 * @param playerToMove Whether it is the player's move, otherwise the computer's.
+		 * @param alpha The score the computer player is already sure of.
+		 * @param beta The score the player is already sure of.
+		 * @return The score of the position.
+		 */
+		private double search(int depth, int ply, boolean playerToMove, double alpha, double beta) {
+			if((++count & 1023) == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()))
+				aborted = true;
+			if(nodes > 0 && count > nodes)
+				aborted = true;
+			if(aborted)
+				return 0;
+			
+			if(depth == 0 || ply == MAX_DEPTH)
+				return evaluator.evaluate(game);
+			
+			Player mover = playerToMove ? player : computer;
+			int[] buffer = moves[ply];
+			int n = game.generateInserts(buffer, 0, mover, true);
+			
+			if(n == 0)
+				return evaluator.evaluate(game);
+			
+			long key = 0;
+			
+			if(table != null) {
+				key = positionKey(playerToMove);
+				long entry = table.probe(key);
+				
+				if(entry != 0) {
+					if(TranspositionTable.getDepth(entry) >= depth) {
+						double score = fromTable(TranspositionTable.getScore(entry), ply);
+						int bound = TranspositionTable.getBound(entry);
+						
+						if(bound == TranspositionTable.EXACT
+								|| (bound == TranspositionTable.LOWER && score >= beta)
+								|| (bound == TranspositionTable.UPPER && score <= alpha))
+							return score;
+					}
+					
+					// Try the move that was best last time first
+					moveToFront(buffer, n, TranspositionTable.getMove(entry));
+				}
+			}
+			
+			double alphaStart = alpha;
+			double betaStart = beta;
+			double best = playerToMove ? Double.MAX_VALUE : -Double.MAX_VALUE;
+			int bestMove = 0;
+			
+			for(int i = 0; i < n; i++) {
+				double score;
+				game.tryApply(buffer[i], mover);
+				
+				if(playerToMove) {
+					int[] treasure = board.getTreasurePos();
+					
+					if(board.isReachable(treasure[0], treasure[1])) {
+						// The player wins this round, later wins are better for the computer
+						score = -WIN + ply;
+					} else {
+						// Move the token as close to the treasure as it can get
+						int closest = Evaluator.closestReachable(board);
+						game.tryApply(Move.moveTo(board.getColumn(closest), board.getRow(closest)), player);
+						score = search(depth - 1, ply + 1, false, alpha, beta);
+						game.undo();
+					}
+				} else {
+					score = search(depth - 1, ply + 1, true, alpha, beta);
+				}
+				
+				game.undo();
+				
+				if(aborted)
+					return 0;
+				
+				if(playerToMove ? score < best : score > best) {
+					best = score;
+					bestMove = buffer[i];
+					
+					if(playerToMove) {
+						if(best <= alpha)
+							break;
+						if(best < beta)
+							beta = best;
+					} else {
+						if(best >= beta)
+							break;
+						if(best > alpha)
+							alpha = best;
+					}
+				}
+			}
+			
+			if(table != null) {
+				int bound = TranspositionTable.EXACT;
+				
+				if(best <= alphaStart)
+					bound = TranspositionTable.UPPER;
+				else if(best >= betaStart)
+					bound = TranspositionTable.LOWER;
+				
+				table.store(key, bestMove, depth, bound, toTable(best, ply));
+			}
+			
+			return best;
+		}
+		
+		/**
+		 * Get the hash of the current position, including the spare tiles, the last
+		 * inserts (as they can't be inserted back) and the side to move.
+		 */
+		private long positionKey(boolean playerToMove) {
+			return SearchStrategy.positionKey(game, playerToMove);
+		}
+		
+	}
+	
+	/**
+	 * Get the hash of a game's position, including the spare tiles, the last inserts
+	 * (as they can't be inserted back) and the side to move.
+	 */
+	static long positionKey(GameMode game, boolean playerToMove) {
+		long key = game.getHash()
+				^ Long.rotateLeft(Board.getSpareKey(game.getComputerPlayer().getSpareTile().getState()), 32)
+				^ (game.getPlayer().getLastInsert() * PLAYER_INSERT)
+				^ (game.getComputerPlayer().getLastInsert() * COMPUTER_INSERT);
+		
+		return playerToMove ? key ^ PLAYER_TO_MOVE : key;
+	}
+	
+	/**
+	 * Move a move to the front of a list of moves, if it is in the list.
+	 */
+	private static void moveToFront(int[] moves, int n, int move) {
+		for(int i = 0; i < n; i++) {
+			if(moves[i] == move) {
+				moves[i] = moves[0];
+				moves[0] = move;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Convert a score to store in the table. A win is stored as the number of moves
+	 * from the position rather than from the root, as the position can be reached
+	 * at different plies.
+	 */
+	private static double toTable(double score, int ply) {
+		return score < -WIN / 2 ? score - ply : score;
+	}
+	
+	/**
+	 * Convert a score from the table back to the number of moves from the root.
+	 */
+	private static double fromTable(double score, int ply) {
+		return score < -WIN / 2 ? score + ply : score;
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.Board;
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Finds the fewest rounds the player needs to reach the treasure, given a fixed
+ * policy for the computer player, by iterative deepening: every round limit from 1
+ * up is searched in turn, so the first solution found is the shortest. Every choice
+ * the player has is searched: each insert with each rotation, then each tile the
+ * token can move to, nearest the treasure first. The computer player's reply comes
+ * from its policy, which must always give the same move in the same position for
+ * the answer to be exact.
+ * 
+ * There is no distance heuristic, as a single insert can connect the token to
+ * almost any tile, so no useful lower bound on the rounds left exists beyond the
+ * one round the search already tries first. The pruning comes from a fixed-size
+ * transposition table remembering positions already shown to need more rounds than
+ * were left, so memory stays constant however deep the search goes.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Solver {
+	
+	private static final long DEFAULT_TABLE_BYTES = 4L << 20;
+	
+	private GameMode game;
+	private Board board;
+	private Player player;
+	private Player computer;
+	private Strategy opponent;
+	private TranspositionTable table;
+	private long maxNodes;
+	private long nodes;
+	private boolean aborted;
+	
+	// Buffers for each round of the search
+	private int[][] inserts;
+	private int[][] targets;
+	
+	/**
+	 * Construct a solver for a game, working on a snapshot so the game is not
+	 * changed.
+	 * 
+	 * @param game The game to solve, with the player about to make their tile move.
+	 * @param opponent The computer player's policy, or null if the computer player
+	 * doesn't move.
+	 * @param maxNodes The most positions to search before giving up (0 for no limit).
+	 */
+	public Solver(GameMode game, Strategy opponent, long maxNodes) {
+		this.game = game.snapshot();
+		this.board = this.game.getBoard();
+		this.player = this.game.getPlayer();
+		this.computer = this.game.getComputerPlayer();
+		this.opponent = opponent;
+		this.table = new TranspositionTable(DEFAULT_TABLE_BYTES);
+		this.maxNodes = maxNodes;
+	}
+	
+	/**
+	 * Find the fewest rounds the player needs to reach the treasure, including the
+	 * current one.
+	 * 
+	 * @param maxRounds The most rounds to look for a solution in.
+	 * @return The number of rounds, 0 if the token is already on the treasure, or -1
+	 * if there is no solution within maxRounds or the node limit was reached.
+	 */
+	public int solve(int maxRounds) {
+		if(game.hasWon())
+			return 0;
+		
+		maxRounds = Math.min(maxRounds, TranspositionTable.MAX_DEPTH);
+		inserts = new int[maxRounds + 1][game.getMaxMoves()];
+		targets = new int[maxRounds + 1][board.getWidth() * board.getHeight()];
+		nodes = 0;
+		aborted = false;
+		
+		for(int bound = 1; bound <= maxRounds; bound++) {
+			if(search(bound))
+				return bound;
+			if(aborted)
+				return -1;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Get the number of positions searched by the last call to solve().
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Check whether the player can reach the treasure within a number of rounds.
+	 * 
+	 * @param rounds The number of rounds left, at least 1.
+	 * @return Whether the player can reach the treasure in time.
+	 */
+	private boolean search(int rounds) {
+		if(maxNodes > 0 && ++nodes > maxNodes)
+			aborted = true;
+		if(aborted)
+			return false;
+		
+		// The player is always the one to move when a round starts
+		long key = SearchStrategy.positionKey(game, true);
+		long entry = table.probe(key);
+		
+		if(entry != 0 && TranspositionTable.getDepth(entry) >= rounds)
+			return false;
+		
+		int[] moves = inserts[rounds];
+		int n = game.generateInserts(moves, 0, player, true);
+		int[] treasure = board.getTreasurePos();
+		
+		// Any insert that lets the token reach the treasure wins this round
+		for(int i = 0; i < n; i++) {
+			game.tryApply(moves[i], player);
+			boolean won = board.isReachable(treasure[0], treasure[1]);
+			game.undo();
+			
+			if(won)
+				return true;
+		}
+		
+		if(rounds > 1) {
+			for(int i = 0; i < n; i++) {
+				game.tryApply(moves[i], player);
+				boolean won = searchTokenMoves(rounds);
+				game.undo();
+				
+				if(won)
+					return true;
+				if(aborted)
+					return false;
+			}
+		}
+		
+		table.store(key, 0, rounds, TranspositionTable.LOWER, rounds);
+		
+		return false;
+	}
+	
+	/**
+	 * Try every tile the token can move to after the player's insert, nearest the
+	 * treasure first, followed by the computer player's reply.
+	 * 
+	 * @param rounds The number of rounds left, including this one.
+	 * @return Whether the player can reach the treasure in time.
+	 */
+	private boolean searchTokenMoves(int rounds) {
+		int[] cells = targets[rounds];
+		int[] treasure = board.getTreasurePos();
+		long[] reachable = board.getReachable();
+		int n = 0;
+		
+		// Copy the reachable tiles out, sorted by distance to the treasure
+		for(int i = 0; i < reachable.length; i++) {
+			long bits = reachable[i];
+			
+			while(bits != 0) {
+				int index = i * 64 + Long.numberOfTrailingZeros(bits);
+				int d = Evaluator.distance(board, index, treasure[0], treasure[1]);
+				int j = n++;
+				
+				while(j > 0 && Evaluator.distance(board, cells[j - 1], treasure[0], treasure[1]) > d) {
+					cells[j] = cells[j - 1];
+					j--;
+				}
+				
+				cells[j] = index;
+				bits &= bits - 1;
+			}
+		}
+		
+		for(int i = 0; i < n; i++) {
+			game.tryApply(Move.moveTo(board.getColumn(cells[i]), board.getRow(cells[i])), player);
+			
+			int reply = opponent != null ? opponent.chooseMove(game) : 0;
+			boolean replied = reply != 0 && game.tryApply(reply, computer) == Move.LEGAL;
+			boolean won = search(rounds - 1);
+			
+			if(replied)
+				game.undo();
+			
+			game.undo();
+			
+			if(won)
+				return true;
+			if(aborted)
+				return false;
+		}
+		
+		return false;
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.labyrinth.game.ai;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Works out a strategy's move ahead of time on a background thread, on a guess at
+ * the position it will be asked about. When the move is needed, the guess is used
+ * if the position turned out the same and thrown away otherwise.
+ * 
+ * The computer player's insert only depends on where the player leaves the token,
+ * so the computer player's reply can be worked out while the player is still
+ * making their token move, with each token move starting a new guess.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Speculation {
+	
+	private Strategy strategy;
+	private ExecutorService executor;
+	private Future<Integer> guess;
+	private long key; // of the position guessed
+	private int hits;
+	private int misses;
+	
+	/**
+	 * Construct a speculation for a strategy.
+	 * 
+	 * @param strategy The strategy to work out moves with.
+	 */
+	public Speculation(Strategy strategy) {
+		this.strategy = strategy;
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "labyrinth-speculation");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * Start working out the strategy's move for a game's current position, with the
+	 * computer player to move next, unless it is already being worked out. The game
+	 * is not changed.
+	 * 
+	 * @param game The game to work out the move for.
+	 */
+	public synchronized void start(GameMode game) {
+		long position = SearchStrategy.positionKey(game, false);
+		
+		if(guess != null && position == key)
+			return;
+		
+		cancel();
+		
+		// Snapshots are taken here, as taking one marks the game's tiles as shared
+		final GameMode snapshot = game.snapshot();
+		
+		key = position;
+		guess = executor.submit(new Callable<Integer>() {
+			public Integer call() {
+				return strategy.chooseMove(snapshot);
+			}
+		});
+	}
+	
+	/**
+	 * Get the strategy's move for a game's current position, using the guess if it
+	 * was for the same position (waiting for it to finish if need be) and working it
+	 * out now otherwise. Moves are always worked out on the background thread, so a
+	 * guess thrown away has stopped before the next move is started and the strategy
+	 * never runs twice at once.
+	 * 
+	 * @param game The game to choose the move in.
+	 * @return The encoded move (see Move).
+	 */
+	public synchronized int chooseMove(final GameMode game) {
+		if(guess != null && SearchStrategy.positionKey(game, false) == key) {
+			hits++;
+		} else {
+			cancel();
+			misses++;
+			
+			// This thread waits, so the game can be used on the background thread
+			guess = executor.submit(new Callable<Integer>() {
+				public Integer call() {
+					return strategy.chooseMove(game);
+				}
+			});
+		}
+		
+		try {
+			return guess.get();
+		} catch(InterruptedException e) {
+			// A miss is worked out on the caller's game, so it must stop before the game is used again
+			guess.cancel(true);
+			awaitStopped();
+			Thread.currentThread().interrupt();
+			return 0;
+		} catch(ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			guess = null;
+		}
+	}
+	
+	/**
+	 * Wait for the background thread to finish whatever it is working out, even if
+	 * this thread is interrupted (the interrupt is kept). As the background thread
+	 * works on one move at a time, this waits for an empty task to run after it.
+	 */
+	private void awaitStopped() {
+		Future<?> barrier = executor.submit(new Runnable() {
+			public void run() {
+			}
+		});
+		boolean interrupted = false;
+		
+		while(true) {
+			try {
+				barrier.get();
+				break;
+			} catch(InterruptedException e) {
+				interrupted = true;
+			} catch(ExecutionException e) {
+				break;
+			}
+		}
+		
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+	
+	/**
+	 * Throw away the current guess, stopping it if it is still being worked out.
+	 */
+	public synchronized void cancel() {
+		if(guess != null)
+			guess.cancel(true);
+		
+		guess = null;
+	}
+	
+	/**
+	 * Stop the background thread. The speculation can't be used afterwards.
+	 */
+	public synchronized void shutdown() {
+		cancel();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Get the strategy moves are worked out with.
+	 */
+	public Strategy getStrategy() {
+		return strategy;
+	}
+	
+	/**
+	 * Get the number of moves taken from a guess.
+	 */
+	public int getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Get the number of moves that had to be worked out when asked for.
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+}
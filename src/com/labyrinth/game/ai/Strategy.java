@@ -0,0 +1,24 @@
+package com.labyrinth.game.ai;
+
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Represents a way for the computer player to choose its tile move.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public interface Strategy {
+	
+	/**
+	 * Choose the computer player's next insert. The game must not be changed, so a
+	 * strategy that needs to try moves should work on a snapshot.
+	 * 
+	 * @param game The game, with the computer player to move.
+	 * @return The encoded insert (see Move), or 0 if there is no legal insert.
+	 */
+	public int chooseMove(GameMode game);
+
+}
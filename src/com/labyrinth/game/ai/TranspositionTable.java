@@ -0,0 +1,168 @@
+package com.labyrinth.game.ai;
+
+/**
+ * A fixed size table of search results, keyed by a 64-bit position hash. Entries
+ * are kept in two parallel long arrays, so the table never grows and never creates
+ * objects however long a search runs.
+ * 
+ * Entries are grouped in pairs. The first of each pair keeps the deepest result
+ * (it is only replaced by one searched at least as deep), while the second is
+ * always replaced, so recent results are kept as well.
+ * 
+ * Threads may share a table without locking. Each entry stores its key XOR its
+ * data, and a probe only accepts an entry if the two still match, so an entry torn
+ * by two threads writing at once is simply treated as missing.
+ * 
+ * The data of an entry is packed into a long as:
+ * 
+ * bits 0-23  the best move (see Move)
+ * bits 24-29 the depth searched
+ * bits 30-31 the bound (EXACT, LOWER or UPPER)
+ * bits 32-63 the score, as a float
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class TranspositionTable {
+	
+	// Bounds of a score
+	public static final int EXACT = 0;
+	public static final int LOWER = 1; // the score is at least this
+	public static final int UPPER = 2; // the score is at most this
+	
+	public static final int MAX_DEPTH = 63;
+	
+	private static final int BYTES_PER_ENTRY = 16;
+	
+	private long[] keys;
+	private long[] data;
+	private int mask; // number of pairs - 1
+	
+	/**
+	 * Construct an empty table that uses at most the given amount of memory.
+	 * 
+	 * @param bytes The memory to use, rounded down to a power of two number of entries.
+	 * @throws IllegalArgumentException When there isn't room for a pair of entries.
+	 */
+	public TranspositionTable(long bytes) throws IllegalArgumentException {
+		long entries = bytes / BYTES_PER_ENTRY;
+		
+		if(entries < 2)
+			throw new IllegalArgumentException("Transposition table must have room for at least 2 entries");
+		
+		entries = Long.highestOneBit(Math.min(entries, 1L << 30));
+		
+		keys = new long[(int) entries];
+		data = new long[(int) entries];
+		mask = (int) (entries / 2) - 1;
+	}
+	
+	/**
+	 * Look up a position.
+	 * 
+	 * @param key The hash of the position.
+	 * @return The packed data of the entry, or 0 if the position is not in the table.
+	 */
+	public long probe(long key) {
+		int i = ((int) key & mask) << 1;
+		
+		for(int j = i; j < i + 2; j++) {
+			long d = data[j];
+			
+			if(d != 0 && (keys[j] ^ d) == key)
+				return d;
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Store the result of searching a position.
+	 * 
+	 * @param key The hash of the position.
+	 * @param move The best move found, or 0 if there was none.
+	 * @param depth The depth the position was searched to, at least 1.
+	 * @param bound Whether the score is EXACT, a LOWER bound or an UPPER bound.
+	 * @param score The score.
+	 */
+	public void store(long key, int move, int depth, int bound, double score) {
+		int i = ((int) key & mask) << 1;
+		long d = pack(move, depth, bound, score);
+		
+		// Keep the deeper result in the first entry, unless it is the same position
+		long first = data[i];
+		
+		if(first != 0 && (keys[i] ^ first) != key && getDepth(first) > depth)
+			i++;
+		
+		data[i] = d;
+		keys[i] = key ^ d;
+	}
+	
+	/**
+	 * Remove every entry.
+	 */
+	public void clear() {
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = 0;
+			data[i] = 0;
+		}
+	}
+	
+	/**
+	 * Get the number of entries the table can hold.
+	 */
+	public int getCapacity() {
+		return keys.length;
+	}
+	
+	/**
+	 * Get the memory used by the entries, in bytes.
+	 */
+	public long getBytes() {
+		return (long) keys.length * BYTES_PER_ENTRY;
+	}
+	
+	/**
+	 * Pack an entry's data. The depth is at least 1, so data is never 0.
+	 */
+	private static long pack(int move, int depth, int bound, double score) {
+		depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+		
+		return (move & 0xFFFFFFL)
+				| ((long) depth << 24)
+				| ((long) (bound & 0x3) << 30)
+				| ((long) Float.floatToRawIntBits((float) score) << 32);
+	}
+	
+	/**
+	 * Get the best move of an entry's data.
+	 */
+	public static int getMove(long data) {
+		return (int) (data & 0xFFFFFF);
+	}
+	
+	/**
+	 * Get the depth of an entry's data.
+	 */
+	public static int getDepth(long data) {
+		return (int) (data >>> 24) & 0x3F;
+	}
+	
+	/**
+	 * Get the bound of an entry's data.
+	 */
+	public static int getBound(long data) {
+		return (int) (data >>> 30) & 0x3;
+	}
+	
+	/**
+	 * Get the score of an entry's data.
+	 */
+	public static double getScore(long data) {
+		return Float.intBitsToFloat((int) (data >>> 32));
+	}
+
+}
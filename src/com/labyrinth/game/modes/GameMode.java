@@ -1,5 +1,7 @@
 package com.labyrinth.game.modes;
 
+import java.util.SplittableRandom;
+
 import com.labyrinth.game.Board;
 import com.labyrinth.game.ComputerPlayer;
 import com.labyrinth.game.Direction;
@@ -46,6 +48,16 @@ public interface GameMode {
 	 */
 	public void moveTokenRight() throws IllegalMoveException;
 	
+	/**
+	 * Move the token straight to a tile along the shortest path.
+	 * 
+	 * @param column The column to move the token to.
+	 * @param row The row to move the token to.
+	 * @return The number of tiles the token moved.
+	 * @throws IllegalMoveException Thrown when the tile is not on the board or can't be reached.
+	 */
+	public int moveTokenTo(int column, int row) throws IllegalMoveException;
+	
 	/**
 	 * Rotate the spare tile by a particular angle.
 	 * 
@@ -76,6 +88,76 @@ public interface GameMode {
 	 */
 	public Player insertColumn(int column, Direction direc, Player performer) throws IllegalMoveException;
 	
+	/**
+	 * Check whether a move (see Move) is legal for a performer, without changing
+	 * anything.
+	 * 
+	 * @param move The encoded move.
+	 * @param performer The player who would perform the move.
+	 * @return Move.LEGAL, or one of the other Move statuses saying why it is not allowed.
+	 */
+	public int checkMove(int move, Player performer);
+	
+	/**
+	 * Write every legal insert and token step for a performer into an array.
+	 * 
+	 * @param moves The array to write the encoded moves to, at least getMaxMoves() long.
+	 * @param performer The player who is to move.
+	 * @return The number of moves written.
+	 */
+	public int generateMoves(int[] moves, Player performer);
+	
+	/**
+	 * Write every legal insert for a performer into an array, starting at an offset.
+	 * 
+	 * @param moves The array to write the encoded moves to.
+	 * @param count The offset to start writing at.
+	 * @param performer The player who is to move.
+	 * @param rotations Whether to include turning the spare tile before inserting.
+	 * @return The offset after the last move written.
+	 */
+	public int generateInserts(int[] moves, int count, Player performer, boolean rotations);
+	
+	/**
+	 * Get the largest number of moves the move generators can write.
+	 */
+	public int getMaxMoves();
+	
+	/**
+	 * Apply a move (see Move) for the player, recording it so it can be taken back.
+	 * 
+	 * @param move The encoded move.
+	 * @throws IllegalMoveException When the move is not allowed.
+	 */
+	public void apply(int move) throws IllegalMoveException;
+	
+	/**
+	 * Apply a move (see Move) for a performer if it is legal, recording it so it can
+	 * be taken back.
+	 * 
+	 * @param move The encoded move.
+	 * @param performer The player who is performing the move.
+	 * @return Move.LEGAL if the move was applied, otherwise why it is not allowed.
+	 */
+	public int tryApply(int move, Player performer);
+	
+	/**
+	 * Take back the last move made with apply().
+	 * 
+	 * @return False if there was no move to take back.
+	 */
+	public boolean undo();
+	
+	/**
+	 * Get the number of applied moves that can be taken back.
+	 */
+	public int getJournalSize();
+	
+	/**
+	 * Take a snapshot of the game that can be played on independently.
+	 */
+	public GameMode snapshot();
+	
 	/**
 	 * Update the player with a new player.
 	 * 
@@ -98,6 +180,18 @@ public interface GameMode {
 	 */
 	public Board getBoard();
 	
+	/**
+	 * Get the game's random number generator, for anything random done in the game
+	 * (e.g. a random player's moves). Like the game, it must only be used by one
+	 * thread at a time.
+	 */
+	public SplittableRandom getRandom();
+	
+	/**
+	 * Get the 64-bit hash of the current position.
+	 */
+	public long getHash();
+	
 	/**
 	 * Get the active player.
 	 */
@@ -1,15 +1,21 @@
 package com.labyrinth.game.modes;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import com.labyrinth.game.Board;
+import com.labyrinth.game.BoardGenerator;
 import com.labyrinth.game.ComputerPlayer;
 import com.labyrinth.game.Direction;
 import com.labyrinth.game.IllegalMoveException;
 import com.labyrinth.game.Leaderboard;
+import com.labyrinth.game.Move;
 import com.labyrinth.game.Player;
 import com.labyrinth.game.RotationAngle;
 import com.labyrinth.game.SettingsManager;
 import com.labyrinth.game.Tile;
+import com.labyrinth.game.ai.GreedyPlayer;
+import com.labyrinth.game.ai.Solver;
+import com.labyrinth.game.ai.Strategy;
 
 /**
  * Represents the Treasure Chase game mode.
@@ -27,23 +33,87 @@ public class TreasureChase implements GameMode {
 	private int round;
 	private SettingsManager settings;
 	private ComputerPlayer computer;
-	private Random rand;
+	private SplittableRandom rand;
 	private String currentMove; // tile/token
 	
+	private static final RotationAngle[] ROTATIONS = RotationAngle.values();
+	
+	// Layouts tried when games must be solvable, moving the treasure between new boards
+	private static final int TREASURES_PER_BOARD = 8;
+	private static final int MAX_LAYOUTS = 256;
+	
+	// Move journal for apply()/undo(), one entry per applied move
+	private int[] journalMoves;
+	private int[] journalSpares; // performer spare tile state before the move
+	private int[] journalTokens; // token position before the move (column << 8 | row)
+	private int[] journalLastMoves; // performer last move and last insert before the move
+	private int[] journalLastInserts;
+	private Player[] journalPerformers;
+	private int journalSize;
+	
 	/**
-	 * Construct a new Treasure Chase game with the specified settings.
+	 * Construct a new Treasure Chase game with the specified settings, with a random
+	 * number generator split from the settings' (see SettingsManager.splitRandom()).
 	 * 
 	 * @param settings The settings to use for the game.
 	 */
 	public TreasureChase(SettingsManager settings) {
-		this.player = new Player();
-		this.leaderboard = new Leaderboard(settings.getLeaderboard());
+		this(settings, settings.splitRandom());
+	}
+	
+	/**
+	 * Construct a new Treasure Chase game with the specified settings. Everything
+	 * random about the game comes from the random number generator, so the same
+	 * generator state always gives the same game.
+	 * 
+	 * If the settings ask for games to be solvable within a number of rounds (see
+	 * SettingsManager.getSolvableRounds()), each layout is checked by playing it out
+	 * (see GreedyPlayer.playOut()). A layout that fails has its treasure moved, and
+	 * after a few tries the board is generated again, until one passes. Should tile
+	 * weights make such layouts too rare, the last one tried is kept.
+	 * 
+	 * @param settings The settings to use for the game.
+	 * @param rand The random number generator for the game, used by no other.
+	 */
+	public TreasureChase(SettingsManager settings, SplittableRandom rand) {
+		BoardGenerator generator = settings.getBoardGenerator();
+		
+		this.rand = rand;
+		this.player = new Player(rand);
+		this.leaderboard = settings.getLeaderboard() != null ? new Leaderboard(settings.getLeaderboard()) : new Leaderboard();
 		this.settings = settings;
-		this.board = new Board(settings.getColumns(), settings.getRows());
-		this.computer = new ComputerPlayer(this.board);
+		this.board = generator.generate(rand);
+		this.computer = new ComputerPlayer(this.board, rand.split());
+		this.computer.setStrategy(settings.getDifficulty().createStrategy());
+		this.currentMove = "tile";
 		
-		// Set a random tile on the board to contain treasure
-		this.rand = new Random();
+		initJournal();
+		placeTreasure();
+		
+		int bound = settings.getSolvableRounds();
+		
+		if(bound > 0) {
+			GreedyPlayer checker = new GreedyPlayer();
+			
+			for(int layout = 1; layout < MAX_LAYOUTS && checker.playOut(this, bound) < 0; layout++) {
+				if(layout % TREASURES_PER_BOARD == 0) {
+					// The tiles are to blame as much as the treasure, start again
+					generator.regenerate(board, rand);
+				} else {
+					int[] treasurePos = board.getTreasurePos();
+					board.getTile(treasurePos[0], treasurePos[1]).setTreasure(false);
+				}
+				
+				placeTreasure();
+			}
+		}
+	}
+	
+	/**
+	 * Set a random tile on the board, other than the token's at (1,1), to contain
+	 * treasure.
+	 */
+	private void placeTreasure() {
 		int rCol = rand.nextInt(settings.getColumns()) + 1;
 		int rRow = rand.nextInt(settings.getRows()) + 1;
 		
@@ -55,8 +125,50 @@ public class TreasureChase implements GameMode {
 		
 		this.board.getTile(rCol, rRow).setTreasure(true);
 		this.board.setTreasurePos(rCol, rRow);
-		
-		this.currentMove = "tile";
+	}
+	
+	/**
+	 * Construct a snapshot of another Treasure Chase game.
+	 * 
+	 * @param other The game to take a snapshot of.
+	 */
+	private TreasureChase(TreasureChase other) {
+		this.player = new Player(other.player);
+		this.leaderboard = other.leaderboard;
+		this.round = other.round;
+		this.settings = other.settings;
+		this.board = other.board.snapshot();
+		this.computer = new ComputerPlayer(other.computer);
+		this.rand = other.rand.split();
+		this.currentMove = other.currentMove;
+		
+		// The journal refers to the other game's players, so start afresh
+		initJournal();
+	}
+	
+	/**
+	 * Create an empty move journal.
+	 */
+	private void initJournal() {
+		journalMoves = new int[16];
+		journalSpares = new int[16];
+		journalTokens = new int[16];
+		journalLastMoves = new int[16];
+		journalLastInserts = new int[16];
+		journalPerformers = new Player[16];
+		journalSize = 0;
+	}
+	
+	/**
+	 * Take a snapshot of the game for analysis. The snapshot can be played on without
+	 * affecting this game, and the board tiles are only copied once either game
+	 * changes them. The leaderboard and settings are shared, and the snapshot's random
+	 * number generator is split from this game's.
+	 * 
+	 * @return The snapshot of the game.
+	 */
+	public TreasureChase snapshot() {
+		return new TreasureChase(this);
 	}
 	
 	/**
@@ -65,37 +177,7 @@ public class TreasureChase implements GameMode {
 	 * @throws IllegalMoveException Thrown when a wall is encountered.
 	 */
 	public void moveTokenUp() throws IllegalMoveException {
-		int newRow = 0;
-		int tokenPosCol = board.getTokenPos()[0];
-		int tokenPosRow = board.getTokenPos()[1];
-		
-		// Check if token will go over the board
-		if(tokenPosRow == board.getHeight()) {
-			// Make sure there isn't a wall blocking movement
-			if(!board.getTile(tokenPosCol, tokenPosRow).getNorth() ||
-					!board.getTile(tokenPosCol, 1).getSouth()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-			// Transition token over board Pacman style
-			newRow = 1;
-		}
-		else {
-			// Won't go over board, but we need to check if a wall is blocking movement
-			newRow = tokenPosRow + 1;
-			
-			// Check if current tile north entry is available, and new tile south
-			if(!board.getTile(tokenPosCol, tokenPosRow).getNorth() ||
-					!board.getTile(tokenPosCol, newRow).getSouth()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-		}
-		
-		// Move token :)
-		board.getTile(tokenPosCol, tokenPosRow).setToken(false);
-		board.setTokenPos(tokenPosCol, newRow);
-		board.getTile(board.getTokenPos()[0], board.getTokenPos()[1]).setToken(true);
+		moveToken(Tile.NORTH);
 	}
 	
 	/**
@@ -104,37 +186,7 @@ public class TreasureChase implements GameMode {
 	 * @throws IllegalMoveException Thrown when a wall is encountered.
 	 */
 	public void moveTokenDown() throws IllegalMoveException {
-		int newRow = 0;
-		int tokenPosCol = board.getTokenPos()[0];
-		int tokenPosRow = board.getTokenPos()[1];
-		
-		// Check if token will go over the board
-		if(tokenPosRow == 1) {
-			// Make sure there isn't a wall blocking movement
-			if(!board.getTile(tokenPosCol, tokenPosRow).getSouth() ||
-					!board.getTile(tokenPosCol, board.getHeight()).getNorth()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-			// Transition token over board Pacman style
-			newRow = board.getHeight();
-		}
-		else {
-			// Won't go over board, but we need to check if a wall is blocking movement
-			newRow = tokenPosRow - 1;
-			
-			// Check if current tile north entry is available, and new tile south
-			if(!board.getTile(tokenPosCol, tokenPosRow).getSouth() ||
-					!board.getTile(tokenPosCol, newRow).getNorth()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-		}
-		
-		// Move token :)
-		board.getTile(tokenPosCol, tokenPosRow).setToken(false);
-		board.setTokenPos(tokenPosCol, newRow);
-		board.getTile(board.getTokenPos()[0], board.getTokenPos()[1]).setToken(true);
+		moveToken(Tile.SOUTH);
 	}
 	
 	/**
@@ -143,37 +195,7 @@ public class TreasureChase implements GameMode {
 	 * @throws IllegalMoveException Thrown when a wall is encountered.
 	 */
 	public void moveTokenLeft() throws IllegalMoveException { 
-		int newCol = 0;
-		int tokenPosCol = board.getTokenPos()[0];
-		int tokenPosRow = board.getTokenPos()[1];
-		
-		// Check if token will go over the board
-		if(tokenPosCol == 1) {
-			// Make sure there isn't a wall blocking movement
-			if(!board.getTile(tokenPosCol, tokenPosRow).getWest() ||
-					!board.getTile(board.getWidth(), tokenPosRow).getEast()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-			// Transition token over board Pacman style
-			newCol = board.getWidth();
-		}
-		else {
-			// Won't go over board, but we need to check if a wall is blocking movement
-			newCol = tokenPosCol - 1;
-			
-			// Check if current tile north entry is available, and new tile south
-			if(!board.getTile(tokenPosCol, tokenPosRow).getWest() ||
-					!board.getTile(newCol, tokenPosRow).getEast()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-		}
-		
-		// Move token :)
-		board.getTile(tokenPosCol, tokenPosRow).setToken(false);
-		board.setTokenPos(newCol, tokenPosRow);
-		board.getTile(board.getTokenPos()[0], board.getTokenPos()[1]).setToken(true);
+		moveToken(Tile.WEST);
 	}
 	
 	/**
@@ -182,37 +204,52 @@ public class TreasureChase implements GameMode {
 	 * @throws IllegalMoveException Thrown when a wall is encountered.
 	 */
 	public void moveTokenRight() throws IllegalMoveException { 
-		int newCol = 0;
-		int tokenPosCol = board.getTokenPos()[0];
-		int tokenPosRow = board.getTokenPos()[1];
-		
-		// Check if token will go over the board
-		if(tokenPosCol == board.getWidth()) {
-			// Make sure there isn't a wall blocking movement
-			if(!board.getTile(tokenPosCol, tokenPosRow).getEast() ||
-					!board.getTile(board.getWidth(), tokenPosRow).getWest()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
-			// Transition token over board Pacman style
-			newCol = 1;
-		}
-		else {
-			// Won't go over board, but we need to check if a wall is blocking movement
-			newCol = tokenPosCol + 1;
-			
-			// Check if current tile north entry is available, and new tile south
-			if(!board.getTile(tokenPosCol, tokenPosRow).getEast() ||
-					!board.getTile(newCol, tokenPosRow).getWest()) {
-				// Can't pass through, failed
-				throw new IllegalMoveException("Can't pass through walls!");
-			}
+		moveToken(Tile.EAST);
+	}
+	
+	/**
+	 * Move the token a tile in a direction. The token transitions over the edges of
+	 * the board Pacman style.
+	 * 
+	 * @param direction The direction to move in (Tile.NORTH, EAST, SOUTH or WEST).
+	 * @throws IllegalMoveException Thrown when a wall is encountered.
+	 */
+	private void moveToken(int direction) throws IllegalMoveException {
+		int index = board.getIndex(board.getTokenPos()[0], board.getTokenPos()[1]);
+		
+		// Check if current tile entry is available, and the new tile's opposite entry
+		if(!board.canMove(index, direction)) {
+			// Can't pass through, failed
+			throw new IllegalMoveException("Can't pass through walls!");
 		}
 		
 		// Move token :)
-		board.getTile(tokenPosCol, tokenPosRow).setToken(false);
-		board.setTokenPos(newCol, tokenPosRow);
-		board.getTile(board.getTokenPos()[0], board.getTokenPos()[1]).setToken(true);
+		int next = board.getNeighbour(index, direction);
+		board.moveToken(board.getColumn(next), board.getRow(next));
+	}
+	
+	/**
+	 * Move the token straight to a tile along the shortest path, as if it were moved
+	 * there one tile at a time.
+	 * 
+	 * @param column The column to move the token to.
+	 * @param row The row to move the token to.
+	 * @return The number of tiles the token moved.
+	 * @throws IllegalMoveException Thrown when the tile is not on the board or can't be reached.
+	 */
+	public int moveTokenTo(int column, int row) throws IllegalMoveException {
+		if(column < 1 || column > board.getWidth() || row < 1 || row > board.getHeight())
+			throw new IllegalMoveException("Specified tile not within range");
+		
+		int steps = board.findPath(column, row, null);
+		
+		if(steps < 0)
+			throw new IllegalMoveException("Can't reach that tile, walls are in the way!");
+		
+		// Every step along the path is valid, so the token can go straight to the end
+		board.moveToken(column, row);
+		
+		return steps;
 	}
 	
 	/**
@@ -221,6 +258,16 @@ public class TreasureChase implements GameMode {
 	 * @param angle The angle to rotate the spare tile by. Must be either 90, 180 or 270.
 	 */
 	public void rotateTile(int angle) throws NumberFormatException {
+		rotateTile(angle, player);
+	}
+	
+	/**
+	 * Rotate a player's spare tile by a particular angle.
+	 * 
+	 * @param angle The angle to rotate the spare tile by. Must be either 90, 180 or 270.
+	 * @param performer The player whose spare tile to rotate.
+	 */
+	private void rotateTile(int angle, Player performer) throws NumberFormatException {
 		if(angle < 0 || angle > 270)
 			// Angle is out of bounds
 			throw new NumberFormatException("Angle must either be 90, 180 or 270");
@@ -229,184 +276,256 @@ public class TreasureChase implements GameMode {
 			// Angle isn't divisible by 90
 			throw new NumberFormatException("Angle must either be 90, 180 or 270");
 		
-		int currAngle = RotationAngle.convertToInt(player.getSpareTile().getRotation());
-		RotationAngle newAngle = RotationAngle.convertFromInt((angle + currAngle) % 360);
-		player.getSpareTile().setRotation(newAngle);
+		turnSpareTile(angle, performer);
 		
 		// Update player move
-		player.updateLastMove("rotate " + angle);
+		performer.updateLastMove(Move.rotate(angle));
 	}
 	
 	/**
-	 * Insert the spare tile into the specified row.
+	 * Turn a player's spare tile by an angle that is already known to be valid.
+	 */
+	private static void turnSpareTile(int angle, Player performer) {
+		int currAngle = RotationAngle.convertToInt(performer.getSpareTile().getRotation());
+		RotationAngle newAngle = RotationAngle.convertFromInt((angle + currAngle) % 360);
+		performer.getSpareTile().setRotation(newAngle);
+	}
+	
+	/**
+	 * Apply a move (see Move) for the player and record it in the move journal so
+	 * that it can be taken back with undo().
 	 * 
-	 * @param row The row to insert the spare tile into.
-	 * @param direc The direction from which to insert the tile into.
+	 * @param move The encoded move.
+	 * @throws IllegalMoveException When the move is not allowed.
+	 */
+	public void apply(int move) throws IllegalMoveException {
+		apply(move, player);
+	}
+	
+	/**
+	 * Apply a move (see Move) for a performer and record it in the move journal so
+	 * that it can be taken back with undo(). Token moves always move the token.
+	 * 
+	 * @param move The encoded move.
 	 * @param performer The player who is performing the move.
-	 * @return The newly updated player with increased score/moves and spare tile based on performer.
-	 * @throws IllegalMoveException When the move cannot be accomplished due to immovable tiles, etc.
+	 * @throws IllegalMoveException When the move is not allowed.
 	 */
-	public Player insertRow(int row, Direction direc, Player performer) throws IllegalMoveException {
-		// Check first if move is inserting back into same place
-		String[] lastPlayerMove = performer.getLastMove().split(" ");
-		
-		if(lastPlayerMove.length == 4) {
-			// Valid insert move was last made, do some further checking
-			if(lastPlayerMove[0].equals("insert") && 
-					lastPlayerMove[1].equals("row") && 
-					lastPlayerMove[3].equals(Integer.toString(row))) {
-				if(direc == Direction.LEFT) {
-					// Can't insert from right this time
-					if(lastPlayerMove[2].equals("right")) {
-						throw new IllegalMoveException("Can't insert tile back into same position");
-					}
-				} else if(direc == Direction.RIGHT) {
-					// Can't insert from left this time
-					if(lastPlayerMove[2].equals("left")) {
-						throw new IllegalMoveException("Can't insert tile back into same position");
-					}
-				}
-			}
-		}
-			
-		Tile newSpareTile = null;
-		
-		if(direc == Direction.LEFT)
-			newSpareTile = insertTileRowLeft(row, performer.getSpareTile());
-		else if(direc == Direction.RIGHT)
-			newSpareTile = insertTileRowRight(row, performer.getSpareTile());
-		else
-			throw new IllegalMoveException("Invalid direction specified");
+	public void apply(int move, Player performer) throws IllegalMoveException {
+		int status = tryApply(move, performer);
 		
-		if(newSpareTile != null) {
-			// Success! New spare tile returned
-			performer.setSpareTile(newSpareTile);
-			
-			// Update player move
-			performer.updateLastMove("insert row " + direc.toString().toLowerCase() + " " + row);
-		} else {
-			throw new IllegalMoveException("Could not retrieve new spare tile");
-		}
-		
-		return performer;
+		if(status != Move.LEGAL)
+			throw new IllegalMoveException(describe(status, move));
 	}
 	
 	/**
-	 * Insert a specific tile into the specified row from the left hand side.
+	 * Apply a move (see Move) for a performer if it is legal, recording it in the
+	 * move journal so that it can be taken back with undo(). Nothing is changed when
+	 * the move is not legal.
 	 * 
-	 * @param row The row to insert the tile to.
-	 * @param newTile The tile to insert into the row.
-	 * @return The tile that falls off the side of the board.
-	 */
-	private Tile insertTileRowLeft(int row, Tile newTile) throws IllegalMoveException {
-		// Check if any tiles on row are immovable/fixed
-		for(int i = 1; i < board.getWidth(); i++) {
-			try {
-				if(!board.getTile(i, row).isMovable()) {
-					// Found an immovable tile
-					throw new IllegalMoveException("Specified row contains one or more immovable tiles");
-				}
-			} catch(IllegalArgumentException e) {
-				throw new IllegalMoveException(e.getMessage());
-			}
+	 * @param move The encoded move.
+	 * @param performer The player who is performing the move.
+	 * @return Move.LEGAL if the move was applied, otherwise why it is not allowed.
+	 */
+	public int tryApply(int move, Player performer) {
+		int status = checkMove(move, performer);
+		
+		if(status != Move.LEGAL)
+			return status;
+		
+		int spare = performer.getSpareTile().getState();
+		int token = (board.getTokenPos()[0] << 8) | board.getTokenPos()[1];
+		int lastMove = performer.getLastMoveCode();
+		int lastInsert = performer.getLastInsert();
+		
+		switch(Move.getKind(move)) {
+		case Move.ROW:
+		case Move.COLUMN:
+			performInsert(move, performer);
+			break;
+		case Move.ROTATE:
+			turnSpareTile(Move.getAngle(move), performer);
+			performer.updateLastMove(move);
+			break;
+		case Move.STEP:
+			int next = board.getNeighbour(board.getIndex(token >> 8, token & 0xFF), toTileDirection(Move.getDirection(move)));
+			board.moveToken(board.getColumn(next), board.getRow(next));
+			break;
+		case Move.GOTO:
+			board.moveToken(Move.getLine(move), Move.getRow(move));
+			break;
 		}
 		
-		// Set the spare tile to the tile that will fall off
-		Tile spareTile = board.getTile(board.getWidth(), row);
-		
-		if(spareTile.hasToken()) {
-			// The tile that is going to fall off contains the token, so set token to new tile
-			spareTile.setToken(false);
-			newTile.setToken(true);
-			board.setTokenPos(1, row);
-		}
-		else if(spareTile.hasTreasure()) {
-			// The tile that is going to fall off contains the treasure, so set treasure to new tile
-			spareTile.setTreasure(false);
-			newTile.setTreasure(true);
-			board.setTreasurePos(1, row);
+		if(journalSize == journalMoves.length) {
+			// Journal is full, double its size
+			int size = journalSize * 2;
+			journalMoves = Arrays.copyOf(journalMoves, size);
+			journalSpares = Arrays.copyOf(journalSpares, size);
+			journalTokens = Arrays.copyOf(journalTokens, size);
+			journalLastMoves = Arrays.copyOf(journalLastMoves, size);
+			journalLastInserts = Arrays.copyOf(journalLastInserts, size);
+			journalPerformers = Arrays.copyOf(journalPerformers, size);
 		}
 		
-		// Push all tiles across
-		for(int i = board.getWidth(); i > 1; i--) {
-			// Set tile to preceding tile
-			Tile t = board.getTile(i - 1, row);
-			
-			// Check if preceding tile contains token or treasure
-			if(t.hasToken()) {
-				// If so, set token position to new position
-				board.setTokenPos(i, row);
-			} else if(t.hasTreasure()) {
-				// If so, set treasure position to new position
-				board.setTreasurePos(i, row);
-			}
-			
-			board.setTile(i, row, t);
-		}
+		journalMoves[journalSize] = move;
+		journalSpares[journalSize] = spare;
+		journalTokens[journalSize] = token;
+		journalLastMoves[journalSize] = lastMove;
+		journalLastInserts[journalSize] = lastInsert;
+		journalPerformers[journalSize] = performer;
+		journalSize++;
 		
-		// Set the first tile in row to new tile
-		board.setTile(1, row, newTile);
-		
-		return spareTile;
+		return Move.LEGAL;
 	}
 	
 	/**
-	 * Insert a specific tile into the specified row from the right hand side.
+	 * Check whether a move (see Move) is legal for a performer, without changing
+	 * anything.
 	 * 
-	 * @param row The row to insert the tile to.
-	 * @param newTile The tile to insert into the row.
-	 * @return The tile that falls off the side of the board.
-	 */
-	private Tile insertTileRowRight(int row, Tile newTile) throws IllegalMoveException {
-		// Check if any tiles on row are immovable/fixed
-		for(int i = 1; i < board.getWidth(); i++) {
-			try {
-				if(!board.getTile(i, row).isMovable()) {
-					// Found an immovable tile
-					throw new IllegalMoveException("Specified row contains one or more immovable tiles");
-				}
-			} catch(IllegalArgumentException e) {
-				throw new IllegalMoveException(e.getMessage());
-			}
-		}
-		
-		// Set the spare tile to the tile that will fall off
-		Tile spareTile = board.getTile(1, row);
-		
-		if(spareTile.hasToken()) {
-			// The tile that is going to fall off contains the token, so set token to new tile
-			spareTile.setToken(false);
-			newTile.setToken(true);
-			board.setTokenPos(board.getWidth(), row);
+	 * @param move The encoded move.
+	 * @param performer The player who would perform the move.
+	 * @return Move.LEGAL, or one of the other Move statuses saying why it is not allowed.
+	 */
+	public int checkMove(int move, Player performer) {
+		int line = Move.getLine(move);
+		Direction direc = Move.getDirection(move);
+		
+		switch(Move.getKind(move)) {
+		case Move.ROW:
+			if(Move.isInsertBack(move, performer.getLastInsert()))
+				return Move.INSERT_BACK;
+			if(direc != Direction.LEFT && direc != Direction.RIGHT)
+				return Move.WRONG_DIRECTION;
+			if(line < 1 || line > board.getHeight())
+				return Move.OUT_OF_RANGE;
+			if(!board.isMovableRow(line))
+				return Move.IMMOVABLE;
+			return Move.LEGAL;
+		case Move.COLUMN:
+			if(Move.isInsertBack(move, performer.getLastInsert()))
+				return Move.INSERT_BACK;
+			if(direc != Direction.TOP && direc != Direction.BOTTOM)
+				return Move.WRONG_DIRECTION;
+			if(line < 1 || line > board.getWidth())
+				return Move.OUT_OF_RANGE;
+			if(!board.isMovableColumn(line))
+				return Move.IMMOVABLE;
+			return Move.LEGAL;
+		case Move.ROTATE:
+			return Move.LEGAL;
+		case Move.STEP:
+			int index = board.getIndex(board.getTokenPos()[0], board.getTokenPos()[1]);
+			return board.canMove(index, toTileDirection(direc)) ? Move.LEGAL : Move.BLOCKED;
+		case Move.GOTO:
+			int row = Move.getRow(move);
+			if(line < 1 || line > board.getWidth() || row < 1 || row > board.getHeight())
+				return Move.OUT_OF_RANGE;
+			return board.isReachable(line, row) ? Move.LEGAL : Move.UNREACHABLE;
+		default:
+			return Move.INVALID;
 		}
-		else if(spareTile.hasTreasure()) {
-			// The tile that is going to fall off contains the treasure, so set treasure to new tile
-			spareTile.setTreasure(false);
-			newTile.setTreasure(true);
-			board.setTreasurePos(board.getWidth(), row);
+	}
+	
+	/**
+	 * Get the message for a move that is not allowed, as shown to the player.
+	 * 
+	 * @param status Why the move is not allowed (see checkMove()).
+	 * @param move The encoded move.
+	 */
+	private static String describe(int status, int move) {
+		String line = Move.getKind(move) == Move.ROW ? "row" : "column";
+		
+		switch(status) {
+		case Move.INSERT_BACK:
+			return "Can't insert tile back into same position";
+		case Move.WRONG_DIRECTION:
+			return "Invalid direction specified";
+		case Move.OUT_OF_RANGE:
+			if(Move.getKind(move) == Move.GOTO)
+				return "Specified tile not within range";
+			return "Specified " + line + " not within range";
+		case Move.IMMOVABLE:
+			return "Specified " + line + " contains one or more immovable tiles";
+		case Move.BLOCKED:
+			return "Can't pass through walls!";
+		case Move.UNREACHABLE:
+			return "Can't reach that tile, walls are in the way!";
+		default:
+			return "Invalid move specified";
 		}
+	}
+	
+	/**
+	 * Take back the last move made with apply(), restoring the board, the token and
+	 * treasure positions, and the performer's spare tile and last move. An insert is
+	 * taken back by shifting the line back the other way.
+	 * 
+	 * @return False if there was no move to take back.
+	 */
+	public boolean undo() {
+		if(journalSize == 0)
+			return false;
 		
-		// Push all tiles across
-		for(int i = 1; i < board.getWidth(); i++) {
-			// Set tile to proceeding tile
-			Tile t = board.getTile(i + 1, row);
-			
-			// Check if proceeding tile contains token
-			if(t.hasToken()) {
-				// If so, set token position to new position
-				board.setTokenPos(i, row);
-			} else if(t.hasTreasure()) {
-				// If so, set treasure position to new position
-				board.setTreasurePos(i, row);
-			}
-			
-			board.setTile(i, row, t);
+		int i = --journalSize;
+		int move = journalMoves[i];
+		Player performer = journalPerformers[i];
+		Tile spareTile = performer.getSpareTile();
+		
+		switch(Move.getKind(move)) {
+		case Move.ROW:
+			board.shiftRow(Move.getLine(move), Move.getDirection(move).opposite(), spareTile.getState());
+			break;
+		case Move.COLUMN:
+			board.shiftColumn(Move.getLine(move), Move.getDirection(move).opposite(), spareTile.getState());
+			break;
+		case Move.STEP:
+		case Move.GOTO:
+			board.moveToken(journalTokens[i] >> 8, journalTokens[i] & 0xFF);
+			break;
 		}
 		
-		// Set the last tile in row to new tile
-		board.setTile(board.getWidth(), row, newTile);
+		spareTile.setState(journalSpares[i]);
+		performer.restoreLastMove(journalLastMoves[i], journalLastInserts[i]);
 		
-		return spareTile;
+		journalPerformers[i] = null;
+		
+		return true;
+	}
+	
+	/**
+	 * Get the number of moves in the journal that can be taken back.
+	 */
+	public int getJournalSize() {
+		return journalSize;
+	}
+	
+	/**
+	 * Convert a direction to the token move direction (Tile.NORTH, EAST, SOUTH or WEST).
+	 */
+	private static int toTileDirection(Direction direc) {
+		switch(direc) {
+			case TOP:
+				return Tile.NORTH;
+			case BOTTOM:
+				return Tile.SOUTH;
+			case LEFT:
+				return Tile.WEST;
+			default:
+				return Tile.EAST;
+		}
+	}
+	
+	/**
+	 * Insert the spare tile into the specified row.
+	 * 
+	 * @param row The row to insert the spare tile into.
+	 * @param direc The direction from which to insert the tile into.
+	 * @param performer The player who is performing the move.
+	 * @return The newly updated player with increased score/moves and spare tile based on performer.
+	 * @throws IllegalMoveException When the move cannot be accomplished due to immovable tiles, etc.
+	 */
+	public Player insertRow(int row, Direction direc, Player performer) throws IllegalMoveException {
+		insert(Move.insertRow(row, direc), performer);
+		return performer;
 	}
 	
 	/**
@@ -419,166 +538,155 @@ public class TreasureChase implements GameMode {
 	 * @throws IllegalMoveException When the move cannot be accomplished due to immovable tiles, etc.
 	 */
 	public Player insertColumn(int column, Direction direc, Player performer) throws IllegalMoveException {
-		// Check first if move is inserting back into same place
-		String[] lastPlayerMove = performer.getLastMove().split(" ");
-		
-		if(lastPlayerMove.length == 4) {
-			// Valid insert move was last made, do some further checking
-			if(lastPlayerMove[0].equals("insert") && 
-					lastPlayerMove[1].equals("column") && 
-					lastPlayerMove[3].equals(Integer.toString(column))) {
-				if(direc == Direction.TOP) {
-					// Can't insert from bottom this time
-					if(lastPlayerMove[2].equals("bottom")) {
-						throw new IllegalMoveException("Can't insert tile back into same position");
-					}
-				} else if(direc == Direction.BOTTOM) {
-					// Can't insert from top this time
-					if(lastPlayerMove[2].equals("top")) {
-						throw new IllegalMoveException("Can't insert tile back into same position");
-					}
-				}
-			}
-		}
-		
-		Tile newSpareTile = null;
-		
-		if(direc == Direction.BOTTOM)
-			newSpareTile = insertTileColumnBottom(column, performer.getSpareTile());
-		else if(direc == Direction.TOP)
-			newSpareTile = insertTileColumnTop(column, performer.getSpareTile());
-		else
-			throw new IllegalMoveException("Invalid direction specified");
-		
-		if(newSpareTile != null) {
-			// Success! New spare tile returned
-			performer.setSpareTile(newSpareTile);
-			
-			// Update player move
-			performer.updateLastMove("insert column " + direc.toString().toLowerCase() + " " + column);
-		} else {
-			throw new IllegalMoveException("Could not retrieve new spare tile");
-		}
-		
+		insert(Move.insertColumn(column, direc), performer);
 		return performer;
 	}
 	
 	/**
-	 * Insert a specific tile into the specified column from the bottom.
+	 * Insert the spare tile into a row or column, turning it first if the move says
+	 * so. The tile that falls off becomes the performer's new spare tile.
 	 * 
-	 * @param column The column to insert the tile to.
-	 * @param newTile The tile to insert into the column.
-	 * @return The tile that falls off the side of the board.
-	 */
-	private Tile insertTileColumnBottom(int column, Tile newTile) throws IllegalMoveException {
-		// Check if any tiles in column are immovable/fixed
-		for(int i = 1; i < board.getHeight(); i++) {
-			try {
-				if(!board.getTile(column, i).isMovable()) {
-					// Found an immovable tile
-					throw new IllegalMoveException("Specified column contains one or more immovable tiles");
-				}
-			} catch(IllegalArgumentException e) {
-				throw new IllegalMoveException(e.getMessage());
-			}
-		}
+	 * @param move The encoded row or column insert.
+	 * @param performer The player who is performing the move.
+	 * @throws IllegalMoveException When the move cannot be accomplished due to immovable tiles, etc.
+	 */
+	private void insert(int move, Player performer) throws IllegalMoveException {
+		int status = checkMove(move, performer);
 		
-		// Set the spare tile to the tile that will fall off
-		Tile spareTile = board.getTile(column, board.getHeight());
+		if(status != Move.LEGAL)
+			throw new IllegalMoveException(describe(status, move));
 		
-		if(spareTile.hasToken()) {
-			// The tile that is going to fall off contains the token, so set token to new tile
-			spareTile.setToken(false);
-			newTile.setToken(true);
-			board.setTokenPos(column, 1);
-		}
-		else if(spareTile.hasTreasure()) {
-			// The tile that is going to fall off contains the treasure, so set treasure to new tile
-			spareTile.setTreasure(false);
-			newTile.setTreasure(true);
-			board.setTreasurePos(column, 1);
-		}
+		performInsert(move, performer);
+	}
+	
+	/**
+	 * Insert the spare tile into a row or column, without checking the move is legal.
+	 * 
+	 * @param move The encoded row or column insert.
+	 * @param performer The player who is performing the move.
+	 */
+	private void performInsert(int move, Player performer) {
+		if(Move.getAngle(move) != 0)
+			turnSpareTile(Move.getAngle(move), performer);
 		
-		// Push all tiles across
-		for(int i = board.getHeight(); i > 1; i--) {
-			// Set tile to preceding tile
-			Tile t = board.getTile(column, i - 1);
-			
-			// Check if preceding tile contains token
-			if(t.hasToken()) {
-				// If so, set token position to new position
-				board.setTokenPos(column, i);
-			} else if(t.hasTreasure()) {
-				// If so, set treasure position to new position
-				board.setTreasurePos(column, i);
-			}
-			
-			board.setTile(column, i, t);
-		}
+		// Push the spare tile in, the tile that falls off becomes the new spare tile
+		Tile spareTile = performer.getSpareTile();
 		
-		// Set the first tile in row to new tile
-		board.setTile(column, 1, newTile);
+		if(Move.getKind(move) == Move.ROW)
+			spareTile.setState(board.shiftRow(Move.getLine(move), Move.getDirection(move), spareTile.getState()));
+		else
+			spareTile.setState(board.shiftColumn(Move.getLine(move), Move.getDirection(move), spareTile.getState()));
 		
-		return spareTile;
+		// Update player move
+		performer.updateLastMove(move);
+	}
+	
+	/**
+	 * Write every legal move for a performer into an array: each insert it may make
+	 * with its spare tile as it is, followed by each tile the token can step to.
+	 * 
+	 * @param moves The array to write the encoded moves to, at least getMaxMoves() long.
+	 * @param performer The player who is to move.
+	 * @return The number of moves written.
+	 */
+	public int generateMoves(int[] moves, Player performer) {
+		int count = generateInserts(moves, 0, performer, false);
+		return generateSteps(moves, count);
 	}
 	
 	/**
-	 * Insert a specific tile into the specified column from the top.
+	 * Write every legal insert for a performer into an array, starting at an offset.
+	 * With rotations, each insert is written once for every way of turning the spare
+	 * tile first that gives it different openings (e.g. once for a cross).
 	 * 
-	 * @param column The column to insert the tile to.
-	 * @param newTile The tile to insert into the column.
-	 * @return The tile that falls off the side of the board.
-	 */
-	private Tile insertTileColumnTop(int column, Tile newTile) throws IllegalMoveException {
-		// Check if any tiles in column are immovable/fixed
-		for(int i = 1; i < board.getHeight(); i++) {
-			try {
-				if(!board.getTile(column, i).isMovable()) {
-					// Found an immovable tile
-					throw new IllegalMoveException("Specified column contains one or more immovable tiles");
+	 * @param moves The array to write the encoded moves to.
+	 * @param count The offset to start writing at.
+	 * @param performer The player who is to move.
+	 * @param rotations Whether to include turning the spare tile before inserting.
+	 * @return The offset after the last move written.
+	 */
+	public int generateInserts(int[] moves, int count, Player performer, boolean rotations) {
+		int last = performer.getLastInsert();
+		int turns = 1; // bit per quarter turn to write
+		
+		if(rotations) {
+			int spare = performer.getSpareTile().getState();
+			int rotation = Tile.rotationOf(spare).ordinal();
+			int seen = 0; // bit per set of openings already written
+			turns = 0;
+			
+			for(int i = 0; i < 4; i++) {
+				int turned = Tile.pack(Tile.typeOf(spare), ROTATIONS[(rotation + i) & 3], true);
+				int connections = Tile.connectionsOf(turned);
+				
+				if((seen & (1 << connections)) == 0) {
+					seen |= 1 << connections;
+					turns |= 1 << i;
 				}
-			} catch(IllegalArgumentException e) {
-				throw new IllegalMoveException(e.getMessage());
 			}
 		}
 		
-		// Set the spare tile to the tile that will fall off
-		Tile spareTile = board.getTile(column, 1);
-		
-		if(spareTile.hasToken()) {
-			// The tile that is going to fall off contains the token, so set token to new tile
-			spareTile.setToken(false);
-			newTile.setToken(true);
-			board.setTokenPos(column, board.getHeight());
-		}
-		else if(spareTile.hasTreasure()) {
-			// The tile that is going to fall off contains the treasure, so set treasure to new tile
-			spareTile.setTreasure(false);
-			newTile.setTreasure(true);
-			board.setTreasurePos(column, board.getHeight());
+		for(int row = 1; row <= board.getHeight(); row++) {
+			if(board.isMovableRow(row)) {
+				count = addInsert(moves, count, Move.insertRow(row, Direction.LEFT), last, turns);
+				count = addInsert(moves, count, Move.insertRow(row, Direction.RIGHT), last, turns);
+			}
 		}
 		
-		// Push all tiles across
-		for(int i = 1; i < board.getHeight(); i++) {
-			// Set tile to proceeding tile
-			Tile t = board.getTile(column, i + 1);
-			
-			// Check if proceeding tile contains token
-			if(t.hasToken()) {
-				// If so, set token position to new position
-				board.setTokenPos(column, i);
-			} else if(t.hasTreasure()) {
-				// If so, set treasure position to new position
-				board.setTreasurePos(column, i);
+		for(int column = 1; column <= board.getWidth(); column++) {
+			if(board.isMovableColumn(column)) {
+				count = addInsert(moves, count, Move.insertColumn(column, Direction.TOP), last, turns);
+				count = addInsert(moves, count, Move.insertColumn(column, Direction.BOTTOM), last, turns);
 			}
-			
-			board.setTile(column, i, t);
 		}
 		
-		// Set the first tile in row to new tile
-		board.setTile(column, board.getHeight(), newTile);
+		return count;
+	}
+	
+	/**
+	 * Write an insert once per quarter turn in turns, unless it inserts back.
+	 */
+	private static int addInsert(int[] moves, int count, int move, int last, int turns) {
+		if(Move.isInsertBack(move, last))
+			return count;
+		
+		for(int i = 0; i < 4; i++) {
+			if((turns & (1 << i)) != 0)
+				moves[count++] = Move.withRotation(move, i * 90);
+		}
 		
-		return spareTile;
+		return count;
+	}
+	
+	/**
+	 * Write every single tile step the token can take into an array, starting at an
+	 * offset.
+	 * 
+	 * @param moves The array to write the encoded moves to.
+	 * @param count The offset to start writing at.
+	 * @return The offset after the last move written.
+	 */
+	public int generateSteps(int[] moves, int count) {
+		int index = board.getIndex(board.getTokenPos()[0], board.getTokenPos()[1]);
+		
+		if(board.canMove(index, Tile.NORTH))
+			moves[count++] = Move.step(Direction.TOP);
+		if(board.canMove(index, Tile.SOUTH))
+			moves[count++] = Move.step(Direction.BOTTOM);
+		if(board.canMove(index, Tile.WEST))
+			moves[count++] = Move.step(Direction.LEFT);
+		if(board.canMove(index, Tile.EAST))
+			moves[count++] = Move.step(Direction.RIGHT);
+		
+		return count;
+	}
+	
+	/**
+	 * Get the largest number of moves the generators can write for this board, i.e.
+	 * every insert with every rotation and all four token steps.
+	 */
+	public int getMaxMoves() {
+		return 8 * (board.getWidth() + board.getHeight()) + 4;
 	}
 	
 	/**
@@ -598,12 +706,25 @@ public class TreasureChase implements GameMode {
 		round++;
 		player.setScore(player.getScore() + 1);
 		
+		// The computer move is not journalled, so earlier moves can no longer be taken back
+		clearJournal();
+		
 		if(!hasWon()) {
 			// Make computer move if win condition not satisfied
 			computerMove();
 		}
 	}
 	
+	/**
+	 * Empty the move journal.
+	 */
+	public void clearJournal() {
+		for(int i = 0; i < journalSize; i++)
+			journalPerformers[i] = null;
+		
+		journalSize = 0;
+	}
+	
 	/**
 	 * Check if the player has won by analysing the token position (i.e. if it contains treasure).
 	 * 
@@ -622,60 +743,32 @@ public class TreasureChase implements GameMode {
 	 * Perform a random computer tile move.
 	 */
 	private void computerMove() {
-		// Randomly choose between row or column
-		int r1 = rand.nextInt(2); // row/column
+		int move = computer.chooseMove(this);
 		
-		if(r1 == 0) {
-			// Row
-			
-			// Randomly choose between left or right insertion
-			int r2 = rand.nextInt(2);
-			
-			if(r2 == 0) {
-				// Left
-				try {
-					computer = (ComputerPlayer) insertRow(computer.getRandomRow(), Direction.LEFT, computer);
-				} catch (IllegalMoveException e) {
-					// In the rare case the computer makes an illegal move, redo the move
-					computerMove();
-					return;
-				}
-			} else {
-				// Right
-				try {
-					computer = (ComputerPlayer) insertRow(computer.getRandomRow(), Direction.RIGHT, computer);
-				} catch (IllegalMoveException e) {
-					// In the rare case the computer makes an illegal move, redo the move
-					computerMove();
-					return;
-				}
-			}
-		} else {
-			// Column
-			
-			// Randomly choose between top or bottom insertion
-			int r2 = rand.nextInt(2);
-			
-			if(r2 == 0) {
-				// Top
-				try {
-					computer = (ComputerPlayer) insertColumn(computer.getRandomColumn(), Direction.TOP, computer);
-				} catch (IllegalMoveException e) {
-					// In the rare case the computer makes an illegal move, redo the move
-					computerMove();
-					return;
-				}
-			} else {
-				// Bottom
-				try {
-					computer = (ComputerPlayer) insertColumn(computer.getRandomColumn(), Direction.BOTTOM, computer);
-				} catch (IllegalMoveException e) {
-					// In the rare case the computer makes an illegal move, redo the move
-					computerMove();
-					return;
-				}
-			}
-		}
+		// Fall back on a random insert if the strategy gave an illegal one
+		if(checkMove(move, computer) != Move.LEGAL)
+			move = computer.chooseInsert(this);
+		
+		// The computer only has no move when every row and column is fixed
+		if(move != 0)
+			performInsert(move, computer);
+	}
+	
+	/**
+	 * Find the fewest rounds the player needs to reach the treasure from the current
+	 * position, including the current round, if the computer player always moves by
+	 * a fixed policy (see Solver). The player must be about to make their tile move.
+	 * The game is not changed.
+	 * 
+	 * @param opponent The computer player's policy, which must always give the same move in
+	 * the same position, or null if the computer player doesn't move.
+	 * @param maxRounds The most rounds to look for a solution in.
+	 * @param maxNodes The most positions to search before giving up (0 for no limit).
+	 * @return The number of rounds, 0 if the player has already won, or -1 if there is
+	 * no solution within maxRounds or the node limit was reached.
+	 */
+	public int solve(Strategy opponent, int maxRounds, long maxNodes) {
+		return new Solver(this, opponent, maxNodes).solve(maxRounds);
 	}
 	
 	/**
@@ -685,6 +778,21 @@ public class TreasureChase implements GameMode {
 		return board;
 	}
 	
+	/**
+	 * Get the game's random number generator.
+	 */
+	public SplittableRandom getRandom() {
+		return rand;
+	}
+	
+	/**
+	 * Get the 64-bit Zobrist hash of the current position, covering the board, the
+	 * token and treasure positions and the player's spare tile.
+	 */
+	public long getHash() {
+		return board.getHash() ^ Board.getSpareKey(player.getSpareTile().getState());
+	}
+	
 	/**
 	 * Get the player.
 	 */
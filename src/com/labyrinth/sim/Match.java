@@ -0,0 +1,75 @@
+package com.labyrinth.sim;
+
+import com.labyrinth.game.Move;
+import com.labyrinth.game.Player;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.ai.PlayerStrategy;
+import com.labyrinth.game.modes.GameMode;
+
+/**
+ * Plays whole games without a user interface, the player's moves coming from a
+ * PlayerStrategy and the computer player's from its own strategy. A round is played
+ * the same way GameView plays it: the player's tile move, their token move, then
+ * nextRound() for the computer player's move.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Match {
+	
+	public static final int DEFAULT_MAX_ROUNDS = 200;
+	
+	/**
+	 * Play a game until the player reaches the treasure or runs out of rounds.
+	 * 
+	 * @param game The game to play, with the player about to make their tile move.
+	 * @param player The strategy to choose the player's moves with.
+	 * @param maxRounds The most rounds to play.
+	 * @return The number of rounds the player took to reach the treasure, including
+	 * the last, or -1 if they didn't reach it within maxRounds.
+	 * @throws IllegalStateException When the player strategy chooses an illegal move.
+	 */
+	public static int play(GameMode game, PlayerStrategy player, int maxRounds) throws IllegalStateException {
+		Player performer = game.getPlayer();
+		
+		for(int round = 1; round <= maxRounds; round++) {
+			int insert = player.chooseInsert(game);
+			
+			if(insert != 0 && game.tryApply(insert, performer) != Move.LEGAL)
+				throw new IllegalStateException("Player strategy chose an illegal insert: " + Move.toString(insert));
+			
+			int target = player.chooseTarget(game);
+			
+			if(target != 0 && game.tryApply(target, performer) != Move.LEGAL)
+				throw new IllegalStateException("Player strategy chose an illegal token move: " + Move.toString(target));
+			
+			if(game.hasWon())
+				return round;
+			
+			game.nextRound();
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Create settings for games played without a user interface, i.e. with no
+	 * leaderboard file and so nothing written to the console.
+	 * 
+	 * @param columns The number of columns on the board.
+	 * @param rows The number of rows on the board.
+	 * @return The settings, at the default difficulty.
+	 */
+	public static SettingsManager createSettings(int columns, int rows) {
+		SettingsManager settings = new SettingsManager();
+		
+		settings.setColumns(columns);
+		settings.setRows(rows);
+		settings.setLeaderboard(null);
+		
+		return settings;
+	}
+
+}
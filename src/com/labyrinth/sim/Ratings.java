@@ -0,0 +1,283 @@
+package com.labyrinth.sim;
+
+/**
+ * Elo ratings fitted to the results of games between a number of entrants, with
+ * a 95% confidence interval for each.
+ * 
+ * The ratings are the maximum likelihood fit of the Bradley-Terry model, on the
+ * Elo scale (a 400 point difference is 10 to 1 odds) and averaging 0. Unlike
+ * updating Elo ratings game by game, the fit doesn't depend on the order the games
+ * were played in. A draw counts as half a win each, and every pair of entrants
+ * that played is given one extra draw, so an entrant that won every game still
+ * gets a finite rating. The intervals come from the curvature of the likelihood,
+ * so they assume the games are independent.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Ratings {
+	
+	private static final double ELO = 400 / Math.log(10); // Elo points per unit of log odds
+	private static final double Z95 = 1.96;
+	private static final double PRIOR_DRAWS = 1;
+	private static final int MAX_ITERATIONS = 10000;
+	private static final double TOLERANCE = 1e-9;
+	
+	private String[] names;
+	private double[] elo;
+	private double[] error; // half the width of the 95% confidence interval
+	private double[] points;
+	private long[] games;
+	
+	/**
+	 * Fit ratings to the results of games.
+	 * 
+	 * @param names The names of the entrants.
+	 * @param points The points each entrant scored against each other (1 for a win,
+	 * 0.5 for a draw), i.e. points[i][j] is what i scored playing j.
+	 * @param games The number of games played between each pair of entrants.
+	 */
+	public Ratings(String[] names, double[][] points, long[][] games) {
+		int n = names.length;
+		
+		this.names = names;
+		this.elo = new double[n];
+		this.error = new double[n];
+		this.points = new double[n];
+		this.games = new long[n];
+		
+		// Results with the extra draws
+		double[][] played = new double[n][n];
+		double[] scored = new double[n];
+		
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++) {
+				if(i == j || games[i][j] == 0)
+					continue;
+				
+				played[i][j] = games[i][j] + PRIOR_DRAWS;
+				scored[i] += points[i][j] + PRIOR_DRAWS / 2;
+				this.points[i] += points[i][j];
+				this.games[i] += games[i][j];
+			}
+		}
+		
+		double[] strength = fit(played, scored);
+		double mean = 0;
+		
+		for(int i = 0; i < n; i++)
+			mean += Math.log(strength[i]) / n;
+		
+		for(int i = 0; i < n; i++)
+			elo[i] = (Math.log(strength[i]) - mean) * ELO;
+		
+		double[][] covariance = covariance(played, strength);
+		
+		for(int i = 0; i < n; i++)
+			error[i] = Z95 * Math.sqrt(Math.max(covariance[i][i], 0)) * ELO;
+	}
+	
+	/**
+	 * Find the strength of each entrant, the odds of i beating j being
+	 * strength[i] / strength[j], with the minorization-maximization algorithm.
+	 */
+	private static double[] fit(double[][] played, double[] scored) {
+		int n = scored.length;
+		double[] strength = new double[n];
+		
+		for(int i = 0; i < n; i++)
+			strength[i] = 1;
+		
+		for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double change = 0;
+			double total = 0;
+			
+			for(int i = 0; i < n; i++) {
+				double denominator = 0;
+				
+				for(int j = 0; j < n; j++) {
+					if(played[i][j] > 0)
+						denominator += played[i][j] / (strength[i] + strength[j]);
+				}
+				
+				// An entrant that played no games keeps its strength
+				if(denominator > 0) {
+					double next = scored[i] / denominator;
+					change = Math.max(change, Math.abs(Math.log(next / strength[i])));
+					strength[i] = next;
+				}
+				
+				total += strength[i];
+			}
+			
+			// Keep the strengths around 1, as only their ratios matter
+			for(int i = 0; i < n; i++)
+				strength[i] *= n / total;
+			
+			if(change < TOLERANCE)
+				break;
+		}
+		
+		return strength;
+	}
+	
+	/**
+	 * Get the covariance of the log strengths, averaging 0, from the inverse of the
+	 * Fisher information. The information matrix is singular (adding the same amount
+	 * to every rating changes nothing), so its pseudo-inverse is taken, as
+	 * (I + 1/n)^-1 - 1/n for a connected set of entrants.
+	 */
+	private static double[][] covariance(double[][] played, double[] strength) {
+		int n = strength.length;
+		double[][] information = new double[n][n];
+		
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++) {
+				if(i == j || played[i][j] == 0)
+					continue;
+				
+				double p = strength[i] / (strength[i] + strength[j]);
+				double v = played[i][j] * p * (1 - p);
+				
+				information[i][j] -= v;
+				information[i][i] += v;
+			}
+		}
+		
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++)
+				information[i][j] += 1.0 / n;
+		}
+		
+		double[][] covariance = invert(information);
+		
+		for(int i = 0; i < n; i++) {
+			for(int j = 0; j < n; j++)
+				covariance[i][j] -= 1.0 / n;
+		}
+		
+		return covariance;
+	}
+	
+	/**
+	 * Invert a small matrix by Gauss-Jordan elimination with partial pivoting. The
+	 * matrix is overwritten.
+	 */
+	private static double[][] invert(double[][] a) {
+		int n = a.length;
+		double[][] inverse = new double[n][n];
+		
+		for(int i = 0; i < n; i++)
+			inverse[i][i] = 1;
+		
+		for(int column = 0; column < n; column++) {
+			int pivot = column;
+			
+			for(int row = column + 1; row < n; row++) {
+				if(Math.abs(a[row][column]) > Math.abs(a[pivot][column]))
+					pivot = row;
+			}
+			
+			double[] swap = a[column];
+			a[column] = a[pivot];
+			a[pivot] = swap;
+			swap = inverse[column];
+			inverse[column] = inverse[pivot];
+			inverse[pivot] = swap;
+			
+			double scale = a[column][column];
+			
+			for(int j = 0; j < n; j++) {
+				a[column][j] /= scale;
+				inverse[column][j] /= scale;
+			}
+			
+			for(int row = 0; row < n; row++) {
+				double factor = a[row][column];
+				
+				if(row == column || factor == 0)
+					continue;
+				
+				for(int j = 0; j < n; j++) {
+					a[row][j] -= factor * a[column][j];
+					inverse[row][j] -= factor * inverse[column][j];
+				}
+			}
+		}
+		
+		return inverse;
+	}
+	
+	/**
+	 * Get the names of the entrants.
+	 */
+	public String[] getNames() {
+		return names;
+	}
+	
+	/**
+	 * Get an entrant's Elo rating.
+	 */
+	public double getElo(int entrant) {
+		return elo[entrant];
+	}
+	
+	/**
+	 * Get half the width of the 95% confidence interval of an entrant's rating.
+	 */
+	public double getError(int entrant) {
+		return error[entrant];
+	}
+	
+	/**
+	 * Get the points an entrant scored, over every game it played.
+	 */
+	public double getPoints(int entrant) {
+		return points[entrant];
+	}
+	
+	/**
+	 * Get the number of games an entrant played.
+	 */
+	public long getGames(int entrant) {
+		return games[entrant];
+	}
+	
+	/**
+	 * Describe the ratings as a table, best first.
+	 */
+	public String toString() {
+		StringBuilder table = new StringBuilder();
+		int[] order = new int[names.length];
+		int width = 4;
+		
+		for(int i = 0; i < names.length; i++) {
+			order[i] = i;
+			width = Math.max(width, names[i].length());
+		}
+		
+		// Insertion sort by rating, there are only ever a few entrants
+		for(int i = 1; i < order.length; i++) {
+			for(int j = i; j > 0 && elo[order[j]] > elo[order[j - 1]]; j--) {
+				int swap = order[j];
+				order[j] = order[j - 1];
+				order[j - 1] = swap;
+			}
+		}
+		
+		table.append(String.format("  %4s  %-" + width + "s  %6s  %6s  %6s  %8s%n", "rank", "name", "elo", "+/-95%", "score", "games"));
+		
+		for(int rank = 0; rank < order.length; rank++) {
+			int i = order[rank];
+			double score = games[i] > 0 ? 100 * points[i] / games[i] : 0;
+			
+			table.append(String.format("  %4d  %-" + width + "s  %+6.0f  %6s  %5.1f%%  %8d%n",
+					rank + 1, names[i], elo[i], String.format("%.0f", error[i]), score, games[i]));
+		}
+		
+		return table.toString();
+	}
+
+}
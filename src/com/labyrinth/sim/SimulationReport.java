@@ -0,0 +1,144 @@
+package com.labyrinth.sim;
+
+/**
+ * The results of a batch of games played by a Simulator: how many games took each
+ * number of rounds, and how long they took to play.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class SimulationReport {
+	
+	private long[] counts; // games taking each number of rounds, the last being unfinished games
+	private long nanos;
+	private int threads;
+	private long games;
+	private long rounds;
+	
+	/**
+	 * Construct a report.
+	 * 
+	 * @param counts The number of games that took each number of rounds, from 0, with
+	 * the number of unfinished games last.
+	 * @param nanos The time taken to play the games, in nanoseconds.
+	 * @param threads The number of threads the games were played on.
+	 */
+	public SimulationReport(long[] counts, long nanos, int threads) {
+		this.counts = counts;
+		this.nanos = nanos;
+		this.threads = threads;
+		
+		// Unfinished games were played for every round allowed
+		for(int i = 0; i < counts.length; i++) {
+			games += counts[i];
+			rounds += counts[i] * Math.min(i, counts.length - 2);
+		}
+	}
+	
+	/**
+	 * Get the number of games played.
+	 */
+	public long getGames() {
+		return games;
+	}
+	
+	/**
+	 * Get the number of games the player didn't finish within the most rounds allowed.
+	 */
+	public long getUnfinished() {
+		return counts[counts.length - 1];
+	}
+	
+	/**
+	 * Get the number of games that took a number of rounds.
+	 */
+	public long getCount(int rounds) {
+		return rounds < counts.length - 1 ? counts[rounds] : 0;
+	}
+	
+	/**
+	 * Get the number of rounds played over every game.
+	 */
+	public long getRounds() {
+		return rounds;
+	}
+	
+	/**
+	 * Get the games played each second.
+	 */
+	public double getGamesPerSecond() {
+		return games * 1e9 / nanos;
+	}
+	
+	/**
+	 * Get the rounds played each second.
+	 */
+	public double getRoundsPerSecond() {
+		return rounds * 1e9 / nanos;
+	}
+	
+	/**
+	 * Get the mean rounds of the finished games.
+	 */
+	public double getMean() {
+		long finished = games - getUnfinished();
+		long total = 0;
+		
+		for(int i = 0; i < counts.length - 1; i++)
+			total += counts[i] * i;
+		
+		return finished > 0 ? (double) total / finished : Double.NaN;
+	}
+	
+	/**
+	 * Get the rounds taken by a fraction of the games or fewer, counting unfinished
+	 * games as taking the most.
+	 * 
+	 * @param fraction The fraction of games, e.g. 0.5 for the median.
+	 * @return The number of rounds, or -1 if that many games were unfinished.
+	 */
+	public int getPercentile(double fraction) {
+		long target = (long) Math.ceil(fraction * games);
+		long seen = 0;
+		
+		for(int i = 0; i < counts.length - 1; i++) {
+			seen += counts[i];
+			
+			if(seen >= target && seen > 0)
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Describe the throughput, a summary of the rounds taken and a histogram of them.
+	 */
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		long largest = 1;
+		
+		for(int i = 0; i < counts.length; i++)
+			largest = Math.max(largest, counts[i]);
+		
+		report.append(String.format("  %d games in %.2fs on %d threads: %.1f games/s, %.1f rounds/s%n",
+				games, nanos / 1e9, threads, getGamesPerSecond(), getRoundsPerSecond()));
+		report.append(String.format("  rounds: mean %.2f, median %d, 90%% %d, 99%% %d, unfinished %d%n",
+				getMean(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getUnfinished()));
+		
+		for(int i = 0; i < counts.length; i++) {
+			if(counts[i] == 0)
+				continue;
+			
+			String label = i < counts.length - 1 ? String.format("%5d", i) : "  DNF";
+			int bar = (int) Math.ceil(40.0 * counts[i] / largest);
+			
+			report.append(String.format("  %s | %-40s %d%n", label, new String(new char[bar]).replace('\0', '#'), counts[i]));
+		}
+		
+		return report.toString();
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.labyrinth.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.labyrinth.game.Difficulty;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.ai.GreedyPlayer;
+import com.labyrinth.game.ai.PlayerStrategy;
+import com.labyrinth.game.ai.RandomPlayer;
+import com.labyrinth.game.ai.Strategy;
+import com.labyrinth.game.modes.TreasureChase;
+
+/**
+ * Plays batches of complete Treasure Chase games without a user interface, on a
+ * fixed number of threads, and reports how fast they were played and how many
+ * rounds they took.
+ * 
+ * The player and computer player strategies are shared by every game, so they must
+ * be safe to use from several threads at once (as all the strategies in
+ * com.labyrinth.game.ai are).
+ * 
+ * Each game's random number generator comes from the game's number in the batch, so
+ * a batch from seeded settings plays the same games whichever threads play them.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Simulator {
+	
+	private SettingsManager settings;
+	private PlayerStrategy player;
+	private Strategy computer;
+	private int threads;
+	private int maxRounds;
+	
+	/**
+	 * Construct a simulator.
+	 * 
+	 * @param settings The settings of the games to play, which should have no
+	 * leaderboard file (see Match.createSettings()).
+	 * @param player The strategy to choose the player's moves with.
+	 * @param computer The computer player's strategy, or null for random inserts.
+	 * @param threads The number of threads to play games on (0 for one per processor).
+	 * @param maxRounds The most rounds to play in a game before giving up on it.
+	 */
+	public Simulator(SettingsManager settings, PlayerStrategy player, Strategy computer, int threads, int maxRounds) {
+		this.settings = settings;
+		this.player = player;
+		this.computer = computer;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.maxRounds = maxRounds;
+	}
+	
+	/**
+	 * Play a number of games. Each thread takes the next game to play until they
+	 * have all been played, counting the rounds of its own games, and the counts are
+	 * added together at the end.
+	 * 
+	 * @param games The number of games to play.
+	 * @return The report of the games.
+	 * @throws InterruptedException When interrupted while waiting for the games.
+	 */
+	public SimulationReport run(final int games) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>();
+		final AtomicInteger next = new AtomicInteger();
+		final long seed = settings.splitRandom().nextLong();
+		long[] counts = new long[maxRounds + 2];
+		long start = System.nanoTime();
+		
+		for(int i = 0; i < threads; i++) {
+			tasks.add(new Callable<long[]>() {
+				public long[] call() {
+					// Games taking each number of rounds, the last being unfinished games
+					long[] counts = new long[maxRounds + 2];
+					
+					int number;
+					
+					while((number = next.getAndIncrement()) < games) {
+						TreasureChase game = new TreasureChase(settings, new SplittableRandom(seed + number).split());
+						game.getComputerPlayer().setStrategy(computer);
+						
+						int rounds = Match.play(game, player, maxRounds);
+						counts[rounds < 0 ? maxRounds + 1 : rounds]++;
+					}
+					
+					return counts;
+				}
+			});
+		}
+		
+		try {
+			for(Future<long[]> result : pool.invokeAll(tasks)) {
+				long[] thread = result.get();
+				
+				for(int i = 0; i < counts.length; i++)
+					counts[i] += thread[i];
+			}
+		} catch(ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		return new SimulationReport(counts, System.nanoTime() - start, threads);
+	}
+	
+	/**
+	 * Play a batch of games and print the report.
+	 * 
+	 * Usage: Simulator [games] [threads] [difficulty] [player: random/greedy] [columns] [rows] [seed]
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+		Difficulty difficulty = args.length > 2 ? Difficulty.convertFromString(args[2]) : Difficulty.EASY;
+		PlayerStrategy player = args.length > 3 && args[3].equals("greedy") ? new GreedyPlayer() : new RandomPlayer();
+		int columns = args.length > 4 ? Integer.parseInt(args[4]) : 7;
+		int rows = args.length > 5 ? Integer.parseInt(args[5]) : columns;
+		SettingsManager settings = Match.createSettings(columns, rows);
+		
+		if(args.length > 6)
+			settings.setSeed(Long.parseLong(args[6]));
+		
+		Strategy computer = difficulty.createStrategy();
+		Simulator simulator = new Simulator(settings, player, computer, threads, Match.DEFAULT_MAX_ROUNDS);
+		
+		System.out.println(games + " games of " + columns + "x" + rows + " Treasure Chase, " + difficulty + " computer player:");
+		System.out.println(simulator.run(games));
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.labyrinth.sim;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.labyrinth.game.Difficulty;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.ai.Evaluator;
+import com.labyrinth.game.ai.GreedyPlayer;
+import com.labyrinth.game.ai.MctsStrategy;
+import com.labyrinth.game.ai.PlayerStrategy;
+import com.labyrinth.game.ai.RandomPlayer;
+import com.labyrinth.game.ai.SearchStrategy;
+import com.labyrinth.game.ai.Strategy;
+import com.labyrinth.game.modes.TreasureChase;
+
+/**
+ * Plays every player strategy against every computer player strategy on the same
+ * boards, over a number of board sizes, and rates the strategies of each side.
+ * 
+ * Each board is played once by every pairing from the same seed, so two players
+ * facing the same computer player (or two computer players facing the same player)
+ * start from exactly the same game. Each such pair of games is a duel: the player
+ * who reaches the treasure in fewer rounds wins, the computer player who holds the
+ * player off for more rounds wins, and equal rounds is a draw. The duels are rated
+ * with Ratings, separately for the players and the computer players.
+ * 
+ * The boards are shared out between a fixed number of threads, each thread playing
+ * every pairing on its board. Strategies are entered by name (see createPlayer()
+ * and createComputer()) and each thread makes its own, so no strategy is ever used
+ * by two threads and a computer player's search never waits on another's.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Tournament {
+	
+	private List<String> playerNames;
+	private List<String> computerNames;
+	private int[] sizes;
+	private int boards;
+	private int threads;
+	private int maxRounds;
+	private long seed;
+	
+	/**
+	 * Construct a tournament with no entrants.
+	 * 
+	 * @param sizes The board sizes to play on, each the number of rows and columns.
+	 * @param boards The number of boards to play of each size.
+	 * @param threads The number of threads to play games on (0 for one per processor).
+	 * @param maxRounds The most rounds to play in a game before giving up on it.
+	 * @param seed The seed the boards are generated from.
+	 */
+	public Tournament(int[] sizes, int boards, int threads, int maxRounds, long seed) {
+		this.playerNames = new ArrayList<String>();
+		this.computerNames = new ArrayList<String>();
+		this.sizes = sizes;
+		this.boards = boards;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.maxRounds = maxRounds;
+		this.seed = seed;
+	}
+	
+	/**
+	 * Enter a player strategy.
+	 * 
+	 * @param name The name of the strategy (see createPlayer()).
+	 * @throws IllegalArgumentException When the name isn't a player strategy.
+	 */
+	public void addPlayer(String name) throws IllegalArgumentException {
+		createPlayer(name);
+		playerNames.add(name);
+	}
+	
+	/**
+	 * Enter a computer player strategy.
+	 * 
+	 * @param name The name of the strategy (see createComputer()).
+	 * @throws IllegalArgumentException When the name isn't a computer player strategy.
+	 */
+	public void addComputer(String name) throws IllegalArgumentException {
+		release(createComputer(name));
+		computerNames.add(name);
+	}
+	
+	/**
+	 * Play every pairing on every board.
+	 * 
+	 * @return The report of the games, with the ratings.
+	 * @throws InterruptedException When interrupted while waiting for the games.
+	 */
+	public TournamentReport run() throws InterruptedException {
+		final int playerCount = playerNames.size();
+		final int computerCount = computerNames.size();
+		final int total = sizes.length * boards;
+		final int[] rounds = new int[total * playerCount * computerCount];
+		final SettingsManager[] settings = new SettingsManager[sizes.length];
+		final AtomicInteger next = new AtomicInteger();
+		
+		for(int i = 0; i < sizes.length; i++)
+			settings[i] = Match.createSettings(sizes[i], sizes[i]);
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		long start = System.nanoTime();
+		
+		for(int i = 0; i < threads; i++) {
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					PlayerStrategy[] players = new PlayerStrategy[playerCount];
+					Strategy[] computers = new Strategy[computerCount];
+					int board;
+					
+					for(int p = 0; p < playerCount; p++)
+						players[p] = createPlayer(playerNames.get(p));
+					for(int c = 0; c < computerCount; c++)
+						computers[c] = createComputer(computerNames.get(c));
+					
+					// Each board has its own part of the results, so nothing is shared
+					while((board = next.getAndIncrement()) < total) {
+						SettingsManager boardSettings = settings[board / boards];
+						long boardSeed = seed + board % boards;
+						
+						for(int p = 0; p < playerCount; p++) {
+							for(int c = 0; c < computerCount; c++) {
+								TreasureChase game = new TreasureChase(boardSettings, new SplittableRandom(boardSeed).split());
+								game.getComputerPlayer().setStrategy(computers[c]);
+								
+								int played = Match.play(game, players[p], maxRounds);
+								rounds[(board * playerCount + p) * computerCount + c] = played < 0 ? maxRounds + 1 : played;
+							}
+						}
+					}
+					
+					for(Strategy computer : computers)
+						release(computer);
+					
+					return null;
+				}
+			});
+		}
+		
+		try {
+			for(Future<Void> result : pool.invokeAll(tasks))
+				result.get();
+		} catch(ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		return new TournamentReport(sizes, boards, playerNames.toArray(new String[playerCount]),
+				computerNames.toArray(new String[computerCount]), rounds, maxRounds, System.nanoTime() - start, threads);
+	}
+	
+	/**
+	 * Stop any threads a computer player strategy searches with.
+	 */
+	private static void release(Strategy computer) {
+		if(computer instanceof MctsStrategy)
+			((MctsStrategy) computer).shutdown();
+	}
+	
+	/**
+	 * Create a player strategy from its name: "random" or "greedy".
+	 * 
+	 * @throws IllegalArgumentException When the name isn't a player strategy.
+	 */
+	public static PlayerStrategy createPlayer(String name) throws IllegalArgumentException {
+		if(name.equals("random"))
+			return new RandomPlayer();
+		if(name.equals("greedy"))
+			return new GreedyPlayer();
+		
+		throw new IllegalArgumentException("Player must be random or greedy: " + name);
+	}
+	
+	/**
+	 * Create a computer player strategy from its name: a difficulty (e.g. "hard"),
+	 * "search:<nodes>" for alpha-beta search of a number of positions, or
+	 * "mcts:<playouts>" for single threaded Monte Carlo Tree Search. Searches limited
+	 * by positions rather than time play the same moves however busy the processors
+	 * are.
+	 * 
+	 * @return The strategy, or null for random inserts.
+	 * @throws IllegalArgumentException When the name isn't a computer player strategy.
+	 */
+	public static Strategy createComputer(String name) throws IllegalArgumentException {
+		String[] parts = name.split(":");
+		
+		try {
+			if(parts[0].equals("search") && parts.length == 2)
+				return new SearchStrategy(0, Long.parseLong(parts[1]), new Evaluator(), null);
+			if(parts[0].equals("mcts") && parts.length == 2)
+				return new MctsStrategy(0, Long.parseLong(parts[1]), 1);
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Budget must be a whole number: " + name);
+		}
+		
+		// Each thread's strategies search on their own, not waiting on another thread's
+		return Difficulty.convertFromString(name).createSeparateStrategy();
+	}
+	
+	/**
+	 * Play a tournament, print the results and write them to a file if one is given.
+	 * 
+	 * Usage: Tournament [players] [computer players] [sizes] [boards per size] [threads] [seed] [results file]
+	 * 
+	 * Lists are separated by commas, e.g.
+	 * 
+	 * 		Tournament random,greedy easy,search:1000,mcts:1000 5,7,9 500
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String[] playerNames = (args.length > 0 ? args[0] : "random,greedy").split(",");
+		String[] computerNames = (args.length > 1 ? args[1] : "easy,search:1000,mcts:1000").split(",");
+		String[] sizeNames = (args.length > 2 ? args[2] : "5,7,9").split(",");
+		int boards = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : new SplittableRandom().nextLong();
+		int[] sizes = new int[sizeNames.length];
+		
+		for(int i = 0; i < sizes.length; i++)
+			sizes[i] = Integer.parseInt(sizeNames[i]);
+		
+		Tournament tournament = new Tournament(sizes, boards, threads, Match.DEFAULT_MAX_ROUNDS, seed);
+		
+		for(String name : playerNames)
+			tournament.addPlayer(name);
+		for(String name : computerNames)
+			tournament.addComputer(name);
+		
+		String results = "Tournament with seed " + seed + ":\n" + tournament.run();
+		System.out.println(results);
+		
+		if(args.length > 6) {
+			BufferedWriter writer = new BufferedWriter(new FileWriter(args[6]));
+			writer.write(results);
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+package com.labyrinth.sim;
+
+/**
+ * The results of a Tournament: the rounds of every game, the ratings of the players
+ * and computer players from the duels between them, and how long it took.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class TournamentReport {
+	
+	private int[] sizes;
+	private int boards;
+	private String[] playerNames;
+	private String[] computerNames;
+	private int[] rounds; // indexed by board, then player, then computer player
+	private int maxRounds;
+	private long nanos;
+	private int threads;
+	private Ratings players;
+	private Ratings computers;
+	
+	/**
+	 * Construct a report and rate the strategies.
+	 * 
+	 * @param sizes The board sizes played on.
+	 * @param boards The number of boards played of each size.
+	 * @param playerNames The names of the player strategies.
+	 * @param computerNames The names of the computer player strategies.
+	 * @param rounds The rounds of each game, maxRounds + 1 for a game the player didn't
+	 * finish, indexed by board (every board of the first size, then the next size and
+	 * so on), then by player, then by computer player.
+	 * @param maxRounds The most rounds played in a game.
+	 * @param nanos The time taken to play the games, in nanoseconds.
+	 * @param threads The number of threads the games were played on.
+	 */
+	public TournamentReport(int[] sizes, int boards, String[] playerNames, String[] computerNames,
+			int[] rounds, int maxRounds, long nanos, int threads) {
+		this.sizes = sizes;
+		this.boards = boards;
+		this.playerNames = playerNames;
+		this.computerNames = computerNames;
+		this.rounds = rounds;
+		this.maxRounds = maxRounds;
+		this.nanos = nanos;
+		this.threads = threads;
+		
+		int p = playerNames.length;
+		int c = computerNames.length;
+		double[][] playerPoints = new double[p][p];
+		long[][] playerDuels = new long[p][p];
+		double[][] computerPoints = new double[c][c];
+		long[][] computerDuels = new long[c][c];
+		
+		for(int board = 0; board < sizes.length * boards; board++) {
+			// Players facing the same computer player, fewer rounds wins
+			for(int j = 0; j < c; j++) {
+				for(int a = 0; a < p; a++) {
+					for(int b = a + 1; b < p; b++)
+						duel(playerPoints, playerDuels, a, b, getRounds(board, b, j), getRounds(board, a, j));
+				}
+			}
+			
+			// Computer players facing the same player, more rounds wins
+			for(int i = 0; i < p; i++) {
+				for(int a = 0; a < c; a++) {
+					for(int b = a + 1; b < c; b++)
+						duel(computerPoints, computerDuels, a, b, getRounds(board, i, a), getRounds(board, i, b));
+				}
+			}
+		}
+		
+		this.players = new Ratings(playerNames, playerPoints, playerDuels);
+		this.computers = new Ratings(computerNames, computerPoints, computerDuels);
+	}
+	
+	/**
+	 * Score a duel between two entrants, the one with the higher result winning.
+	 */
+	private static void duel(double[][] points, long[][] duels, int a, int b, int resultA, int resultB) {
+		double score = resultA > resultB ? 1 : (resultA == resultB ? 0.5 : 0);
+		
+		points[a][b] += score;
+		points[b][a] += 1 - score;
+		duels[a][b]++;
+		duels[b][a]++;
+	}
+	
+	/**
+	 * Get the rounds of a game, maxRounds + 1 if the player didn't finish.
+	 * 
+	 * @param board The board, counting every board of the first size, then the next.
+	 * @param player The player.
+	 * @param computer The computer player.
+	 */
+	public int getRounds(int board, int player, int computer) {
+		return rounds[(board * playerNames.length + player) * computerNames.length + computer];
+	}
+	
+	/**
+	 * Get the mean rounds of a pairing's games on one board size, counting a game the
+	 * player didn't finish as maxRounds + 1.
+	 * 
+	 * @param size The index of the board size.
+	 * @param player The player.
+	 * @param computer The computer player.
+	 */
+	public double getMeanRounds(int size, int player, int computer) {
+		long total = 0;
+		
+		for(int board = size * boards; board < (size + 1) * boards; board++)
+			total += getRounds(board, player, computer);
+		
+		return boards > 0 ? (double) total / boards : Double.NaN;
+	}
+	
+	/**
+	 * Get the number of games played.
+	 */
+	public long getGames() {
+		return rounds.length;
+	}
+	
+	/**
+	 * Get the ratings of the players.
+	 */
+	public Ratings getPlayerRatings() {
+		return players;
+	}
+	
+	/**
+	 * Get the ratings of the computer players.
+	 */
+	public Ratings getComputerRatings() {
+		return computers;
+	}
+	
+	/**
+	 * Describe the throughput, the ratings of both sides and the mean rounds of every
+	 * pairing on each board size.
+	 */
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		int width = 6;
+		
+		for(String name : playerNames)
+			width = Math.max(width, name.length());
+		
+		report.append(String.format("  %d games in %.2fs on %d threads: %.1f games/s, %d boards of each size%n%n",
+				getGames(), nanos / 1e9, threads, getGames() * 1e9 / nanos, boards));
+		report.append("Players (fewer rounds than another player against the same board and computer player wins):\n");
+		report.append(players).append('\n');
+		report.append("Computer players (more rounds than another against the same board and player wins):\n");
+		report.append(computers).append('\n');
+		report.append("Mean rounds (unfinished games count as " + (maxRounds + 1) + "):\n");
+		
+		for(int s = 0; s < sizes.length; s++) {
+			report.append(String.format("  %-" + width + "s", sizes[s] + "x" + sizes[s]));
+			
+			for(String name : computerNames)
+				report.append(String.format("  %12s", name));
+			
+			report.append('\n');
+			
+			for(int i = 0; i < playerNames.length; i++) {
+				report.append(String.format("  %-" + width + "s", playerNames[i]));
+				
+				for(int j = 0; j < computerNames.length; j++)
+					report.append(String.format("  %12.2f", getMeanRounds(s, i, j)));
+				
+				report.append('\n');
+			}
+		}
+		
+		return report.toString();
+	}
+
+}
@@ -0,0 +1,262 @@
+package com.labyrinth.sim;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.labyrinth.Labyrinth;
+import com.labyrinth.game.SettingsManager;
+import com.labyrinth.game.ai.Evaluator;
+import com.labyrinth.game.ai.RandomPlayer;
+import com.labyrinth.game.ai.SearchStrategy;
+import com.labyrinth.game.modes.GameMode;
+import com.labyrinth.game.modes.TreasureChase;
+
+/**
+ * Tunes the computer player's evaluation weights by self-play, with SPSA
+ * (simultaneous perturbation stochastic approximation). Each step nudges every
+ * weight up or down at random, plays a batch of games with the weights nudged one
+ * way and the same games with them nudged the other way, and moves the weights
+ * towards whichever kept the player from the treasure for longer.
+ * 
+ * The player makes random inserts and takes the token as close to the treasure as
+ * it can get, as a player looking even one move ahead reaches the treasure in the
+ * first round of almost every game, whatever the computer player does. Each pair of
+ * games starts from the same board with the player's choices from the same seed, so
+ * the difference in rounds comes mostly from the weights rather than the luck of the
+ * boards. The distance weight is left as it is, as
+ * scaling every weight by the same amount doesn't change how the computer plays.
+ * 
+ * Games are played on a fixed number of threads with no user interface and nothing
+ * written to the console. The weights are saved after every step, so tuning can be
+ * stopped at any time and picked up again from the file.
+ * 
+ * @author Gareth Gill
+ * @author John Meikle
+ * @version 0.1.18102026
+ *
+ */
+public class Tuner {
+	
+	// SPSA gains, with steps and nudges in units of the starting weights
+	private static final double STEP = 0.2;
+	private static final double NUDGE = 0.5;
+	private static final double STEP_DECAY = 0.602;
+	private static final double NUDGE_DECAY = 0.101;
+	private static final int STABILITY = 10; // steps before the step size starts to decay
+	private static final int MAX_ROUNDS = 50; // a few very long games would swamp the rest
+	
+	private SettingsManager settings;
+	private int games;
+	private long nodes;
+	private int maxRounds;
+	private ExecutorService pool;
+	private SplittableRandom rand;
+	
+	private double distance;
+	private double[] weights; // reach and line weights
+	private double[] scales; // the size of a unit of each weight
+	private int iteration;
+	private double lastRounds;
+	
+	/**
+	 * Construct a tuner.
+	 * 
+	 * @param settings The settings of the games to play, which must have no leaderboard file.
+	 * @param start The weights to start from.
+	 * @param games The number of pairs of games to play each step.
+	 * @param nodes The number of positions the computer player searches for each move.
+	 * @param threads The number of threads to play games on (0 for one per processor).
+	 */
+	public Tuner(SettingsManager settings, Evaluator start, int games, long nodes, int threads) {
+		this.settings = settings;
+		this.games = games;
+		this.nodes = nodes;
+		this.maxRounds = MAX_ROUNDS;
+		this.pool = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+		this.rand = settings.splitRandom();
+		
+		this.distance = start.getDistanceWeight();
+		this.weights = new double[] { start.getReachWeight(), start.getLineWeight() };
+		this.scales = new double[weights.length];
+		
+		for(int i = 0; i < weights.length; i++)
+			scales[i] = Math.max(Math.abs(weights[i]), 0.01);
+	}
+	
+	/**
+	 * Take one SPSA step.
+	 * 
+	 * @return The weights after the step.
+	 * @throws InterruptedException When interrupted while waiting for the games.
+	 */
+	public Evaluator step() throws InterruptedException {
+		double step = STEP / Math.pow(iteration + 1 + STABILITY, STEP_DECAY);
+		double nudge = NUDGE / Math.pow(iteration + 1, NUDGE_DECAY);
+		double[] delta = new double[weights.length];
+		double[] plus = new double[weights.length];
+		double[] minus = new double[weights.length];
+		
+		for(int i = 0; i < weights.length; i++) {
+			delta[i] = rand.nextBoolean() ? 1 : -1;
+			plus[i] = weights[i] + nudge * delta[i] * scales[i];
+			minus[i] = weights[i] - nudge * delta[i] * scales[i];
+		}
+		
+		double[] rounds = playPairs(toEvaluator(plus), toEvaluator(minus));
+		
+		// More rounds is better for the computer player, so climb the gradient
+		for(int i = 0; i < weights.length; i++) {
+			double gradient = (rounds[0] - rounds[1]) / (2 * nudge * delta[i]);
+			weights[i] += step * gradient * scales[i];
+		}
+		
+		lastRounds = (rounds[0] + rounds[1]) / 2;
+		iteration++;
+		
+		return getEvaluator();
+	}
+	
+	/**
+	 * Take a number of steps, saving the weights to a file after each.
+	 * 
+	 * @param steps The number of steps to take.
+	 * @param path The path to save the weights to.
+	 * @return The tuned weights.
+	 * @throws IOException Thrown when the weights can't be saved.
+	 * @throws InterruptedException When interrupted while waiting for the games.
+	 */
+	public Evaluator tune(int steps, String path) throws IOException, InterruptedException {
+		for(int i = 0; i < steps; i++)
+			step().save(path);
+		
+		return getEvaluator();
+	}
+	
+	/**
+	 * Play pairs of games from the same boards, one of each pair with each of two sets
+	 * of weights for the computer player.
+	 * 
+	 * @return The average rounds the player took with each set of weights. A game the
+	 * player doesn't finish counts as the most rounds allowed.
+	 */
+	private double[] playPairs(final Evaluator first, final Evaluator second) throws InterruptedException {
+		List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+		double[] total = new double[2];
+		
+		for(int i = 0; i < games; i++) {
+			final long seed = rand.nextLong();
+			final SplittableRandom random = rand.split();
+			
+			tasks.add(new Callable<int[]>() {
+				public int[] call() {
+					GameMode game = new TreasureChase(settings, random);
+					GameMode copy = game.snapshot();
+					
+					return new int[] { play(game, first, seed), play(copy, second, seed) };
+				}
+			});
+		}
+		
+		for(Future<int[]> result : pool.invokeAll(tasks)) {
+			try {
+				int[] rounds = result.get();
+				total[0] += rounds[0];
+				total[1] += rounds[1];
+			} catch(ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		
+		total[0] /= games;
+		total[1] /= games;
+		
+		return total;
+	}
+	
+	/**
+	 * Play a game with the computer player searching with a set of weights.
+	 * 
+	 * @return The rounds the player took, or the most allowed if they didn't finish.
+	 */
+	private int play(GameMode game, Evaluator evaluator, long seed) {
+		game.getComputerPlayer().setStrategy(new SearchStrategy(0, nodes, evaluator, null));
+		
+		int rounds = Match.play(game, new RandomPlayer(seed), maxRounds);
+		
+		return rounds < 0 ? maxRounds : rounds;
+	}
+	
+	/**
+	 * Make an evaluator from the distance weight and a set of tuned weights.
+	 */
+	private Evaluator toEvaluator(double[] tuned) {
+		return new Evaluator(distance, tuned[0], tuned[1]);
+	}
+	
+	/**
+	 * Stop the threads games are played on. The tuner can't be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+	
+	/**
+	 * Get the current weights.
+	 */
+	public Evaluator getEvaluator() {
+		return toEvaluator(weights);
+	}
+	
+	/**
+	 * Get the number of steps taken.
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+	
+	/**
+	 * Get the average rounds the player took in the last step's games.
+	 */
+	public double getLastRounds() {
+		return lastRounds;
+	}
+	
+	/**
+	 * Tune the weights and save them where the game loads them at startup.
+	 * 
+	 * Usage: Tuner [steps] [pairs of games per step] [threads] [nodes per move] [weights file]
+	 * 
+	 * Tuning starts from the weights already in the file, if there are any.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		long nodes = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+		String path = args.length > 4 ? args[4] : Labyrinth.WEIGHTS_FILE;
+		Evaluator start;
+		
+		try {
+			start = Evaluator.load(path);
+		} catch(FileNotFoundException e) {
+			start = new Evaluator();
+		}
+		
+		Tuner tuner = new Tuner(Match.createSettings(7, 7), start, games, nodes, threads);
+		
+		try {
+			tuner.tune(steps, path);
+		} finally {
+			tuner.shutdown();
+		}
+	}
+
+}
@@ -5,11 +5,16 @@ import java.util.ArrayList;
 import java.util.Scanner;
 
 import com.labyrinth.Labyrinth;
+import com.labyrinth.game.Board;
 import com.labyrinth.game.Direction;
 import com.labyrinth.game.GameManager;
 import com.labyrinth.game.IllegalMoveException;
 import com.labyrinth.game.Leaderboard;
+import com.labyrinth.game.Move;
 import com.labyrinth.game.Tile;
+import com.labyrinth.game.ai.Evaluator;
+import com.labyrinth.game.ai.Hint;
+import com.labyrinth.game.ai.HintEngine;
 import com.labyrinth.game.modes.GameMode;
 
 /**
@@ -27,8 +32,10 @@ public class GameView {
 	private boolean running;
 	private Scanner input;
 	private GameManager manager;
+	private HintEngine hints; // thinks about the player's move while they do
 	
 	private boolean makeTokenMove;
+	private int undoFloor; // moves in the journal before the current move started
 	
 	/**
 	 * Construct a new user interface to interface with a valid
@@ -48,6 +55,8 @@ public class GameView {
 	 * Run the user interface.
 	 */
 	public void run() {
+		hints = new HintEngine(new Evaluator());
+		
 		while(running) {
 			// Main game loop
 			update();
@@ -69,6 +78,8 @@ public class GameView {
 		}
 		
 		// Game loop closed, call clean up code
+		hints.shutdown();
+		game.getComputerPlayer().stopSpeculating();
 		input.close();
 	}
 	
@@ -77,6 +88,8 @@ public class GameView {
 	 */
 	public void startTileMove() {
 		// Process player tile move
+		undoFloor = game.getJournalSize();
+		
 		while(running) {
 			try {
 				promptTileMove();
@@ -97,8 +110,12 @@ public class GameView {
 	public void startTokenMove() {
 		// Process player token move
 		makeTokenMove = true;
+		undoFloor = game.getJournalSize();
 		
 		while(makeTokenMove) {
+			// Work out the computer's reply as if the token stays put, while the player decides
+			game.getComputerPlayer().speculate(game);
+			
 			try {
 				promptTokenMove();
 				
@@ -125,6 +142,9 @@ public class GameView {
 	 * Start the computer move.
 	 */
 	public void startComputerMove() {
+		// Stop thinking about the player's move while the computer makes its own
+		hints.cancel();
+		
 		// Advance to next round by checking win, processing computer move, etc.
 		game.nextRound();
 		game.setCurrentMove("tile");
@@ -140,6 +160,8 @@ public class GameView {
 		System.out.println("\trotate <degrees>");
 		System.out.println("\tinsert row <left/right> <no>");
 		System.out.println("\tinsert column <top/bottom> <no>");
+		System.out.println("\tundo");
+		System.out.println("\thint");
 		System.out.println("\thelp");
 		System.out.print("\nTile Move > ");
 		
@@ -147,9 +169,10 @@ public class GameView {
 		String[] tokens = in.split(" ");
 		
 		// A tile move is either rotate, insert, save or exit
-		if(tokens[0].equals("rotate") || tokens[0].equals("save") || tokens[0].equals("help")) {
+		if(tokens[0].equals("rotate") || tokens[0].equals("undo") || tokens[0].equals("save") || tokens[0].equals("help") ||
+				tokens[0].equals("hint")) {
 			// When the player does a rotation, it does not count as a move, so ask for another tile move
-			// Likewise with save and help
+			// Likewise with undo, save, help and hint
 			parse(tokens);
 			update();
 			promptTileMove();
@@ -168,7 +191,10 @@ public class GameView {
 	public void promptTokenMove() throws IllegalArgumentException {
 		System.out.println("Token Move Commands:");
 		System.out.println("\tmove <up/down/left/right>");
+		System.out.println("\tgoto <column> <row>");
+		System.out.println("\tundo");
 		System.out.println("\tdone (end token move)");
+		System.out.println("\thint");
 		System.out.println("\thelp");
 		System.out.print("\nToken Move > ");
 		
@@ -176,12 +202,13 @@ public class GameView {
 		String[] tokens = in.split(" ");
 		
 		// A token move is move, save or exit
-		if(tokens[0].equals("save") || tokens[0].equals("help")) {
-			// When a player calls save or help, it doesn't take up a move
+		if(tokens[0].equals("save") || tokens[0].equals("help") || tokens[0].equals("hint")) {
+			// When a player calls save, help or hint, it doesn't take up a move
 			parse(tokens);
 			update();
 			promptTokenMove();
-		} else if(tokens[0].equals("move") || tokens[0].equals("done") || tokens[0].equals("exit")) {
+		} else if(tokens[0].equals("move") || tokens[0].equals("goto") || tokens[0].equals("undo") || 
+				tokens[0].equals("done") || tokens[0].equals("exit")) {
 			parse(tokens);
 		} else {
 			throw new IllegalArgumentException("Invalid token move command: only move allowed");
@@ -214,9 +241,9 @@ public class GameView {
 				// Check whether to push in from top or bottom
 				try {
 					if(inputArgs[2].equals("top")) {
-						game.updatePlayer(game.insertColumn(column_no, Direction.TOP, game.getPlayer()));
+						game.apply(Move.insertColumn(column_no, Direction.TOP));
 					} else if(inputArgs[2].equals("bottom")) {
-						game.updatePlayer(game.insertColumn(column_no, Direction.BOTTOM, game.getPlayer()));
+						game.apply(Move.insertColumn(column_no, Direction.BOTTOM));
 					}
 				} catch(IllegalMoveException e) {
 					throw new IllegalArgumentException(e.getMessage());
@@ -233,9 +260,9 @@ public class GameView {
 				// Check whether to push in from left or right
 				try {
 					if(inputArgs[2].equals("left")) {
-						game.updatePlayer(game.insertRow(row_no, Direction.LEFT, game.getPlayer()));
+						game.apply(Move.insertRow(row_no, Direction.LEFT));
 					} else if(inputArgs[2].equals("right")) {
-						game.updatePlayer(game.insertRow(row_no, Direction.RIGHT, game.getPlayer()));
+						game.apply(Move.insertRow(row_no, Direction.RIGHT));
 					}
 				} catch(IllegalMoveException e) {
 					throw new IllegalArgumentException(e.getMessage());
@@ -249,10 +276,12 @@ public class GameView {
 			if(inputArgs.length == 2) {
 				// Rotate spare tile
 				try {
-					game.rotateTile(Integer.parseInt(inputArgs[1]));
+					game.apply(Move.rotate(Integer.parseInt(inputArgs[1])));
 				} catch(NumberFormatException e) {
 					System.out.println(e.getMessage());
 					enterPrompt();
+				} catch(IllegalMoveException e) {
+					throw new IllegalArgumentException(e.getMessage());
 				}
 			} else {
 				throw new IllegalArgumentException("Usage: rotate <degrees>, where degrees is 90, 180 or 270");
@@ -266,16 +295,16 @@ public class GameView {
 				try {
 					if(inputArgs[1].equals("up")) {
 						// Move up
-						game.moveTokenUp();
+						game.apply(Move.step(Direction.TOP));
 					} else if(inputArgs[1].equals("down")) {
 						// Move down
-						game.moveTokenDown();
+						game.apply(Move.step(Direction.BOTTOM));
 					} else if(inputArgs[1].equals("left")) {
 						// Move left
-						game.moveTokenLeft();
+						game.apply(Move.step(Direction.LEFT));
 					} else if(inputArgs[1].equals("right")) {
 						// Move token right
-						game.moveTokenRight();
+						game.apply(Move.step(Direction.RIGHT));
 					} else {
 						throw new IllegalArgumentException("Usage: move <up/down/left/right>");
 					}
@@ -283,6 +312,24 @@ public class GameView {
 					throw new IllegalArgumentException(e.getMessage());
 				}
 			}
+		} else if(inputArgs[0].toLowerCase().equals("goto")) {
+			// Goto command called, move the token along the shortest path in one go
+			if(inputArgs.length < 3) {
+				throw new IllegalArgumentException("Usage: goto <column> <row>");
+			}
+			
+			try {
+				game.apply(Move.moveTo(Integer.parseInt(inputArgs[1]), Integer.parseInt(inputArgs[2])));
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("Usage: goto <column> <row>");
+			} catch(IllegalMoveException e) {
+				throw new IllegalArgumentException(e.getMessage());
+			}
+		} else if(inputArgs[0].toLowerCase().equals("undo")) {
+			// Undo command called, only moves made since this tile/token move started can be undone
+			if(game.getJournalSize() <= undoFloor || !game.undo()) {
+				throw new IllegalArgumentException("Nothing to undo");
+			}
 		} else if(inputArgs[0].toLowerCase().equals("done")) {
 			// User is done making token move
 			makeTokenMove = false;
@@ -303,10 +350,25 @@ public class GameView {
 			System.out.println("\tinsert row <left/right> <no>");
 			System.out.println("\tinsert column <top/bottom> <no>");
 			System.out.println("\tmove <up/down/left/right>");
+			System.out.println("\tgoto <column> <row>");
+			System.out.println("\tundo");
 			System.out.println("\tdone (end token move)");
+			System.out.println("\thint");
 			System.out.println("\tsave <game_name>");
 			System.out.println("\texit");
 			
+			enterPrompt();
+		} else if(inputArgs[0].toLowerCase().equals("hint")) {
+			// Hint command called, give the best move found while the player was thinking
+			Hint hint = hints.getHint();
+			
+			if(hint == null)
+				System.out.println("Still thinking, ask again in a moment");
+			else if(hint.isWin())
+				System.out.println("Hint: " + hint);
+			else
+				System.out.println("Hint: " + hint + " (looked " + hint.getDepth() + " moves ahead)");
+			
 			enterPrompt();
 		} else if(inputArgs[0].toLowerCase().equals("exit")) {
 			// Exit command called
@@ -349,8 +411,8 @@ public class GameView {
 		int width = game.getBoard().getWidth();
 		int height = game.getBoard().getHeight();
 		
-		// Get the tiles from the board
-		Tile[][] tiles = game.getBoard().getTiles();
+		// Get the board to read the packed tiles from
+		Board board = game.getBoard();
 		
 		// Form horizontal top border
 		String borderTop = "   " + Character.toString(CharacterElements.charBorderCornerTopLeft) +
@@ -390,7 +452,7 @@ public class GameView {
 				// tile[2] = middle, tile[3] = middle-bottom
 				// tile[4] = bottom
 				
-				String[] tile = tiles[i][j].getTileString();
+				String[] tile = Tile.stringOf(board.getCell(i * width + j));
 				
 				// Check which tile it is for correct border placement
 				if(j == (width - 1)) {
@@ -482,12 +544,19 @@ public class GameView {
 		
 		// Display the HUB
 		displayHUB();
+		
+		// Start thinking about the player's next move, unless it is the one already thought about
+		if(hints != null && !game.hasWon())
+			hints.analyse(game);
 	}
 	
 	/**
 	 * Called in the event the player has won (i.e. completed the game mode objective(s)).
 	 */
 	public void onTreasureChaseWin() {
+		// The game is over, so stop working out the computer's reply
+		game.getComputerPlayer().stopSpeculating();
+		
 		System.out.println("__   __             __                      _   _   _            _                                              \n" +
                            "\\ \\ / /            / _|                    | | | | | |          | |                                           \n" +
                            " \\ V /___  _   _  | |_ ___  _   _ _ __   __| | | |_| |__   ___  | |_ _ __ ___  __ _ ___ _   _ _ __ ___         \n" +
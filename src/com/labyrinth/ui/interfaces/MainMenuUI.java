@@ -32,10 +32,19 @@ public class MainMenuUI extends UserInterface {
 	 * Construct a main menu interface.
 	 */
 	public MainMenuUI() {
+		// Load in settings
+		this(new SettingsManager(Labyrinth.SETTINGS_FILE));
+	}
+	
+	/**
+	 * Construct a main menu interface with settings already loaded.
+	 * 
+	 * @param settings The settings to play games with.
+	 */
+	public MainMenuUI(SettingsManager settings) {
 		super();
 		
-		// Load in settings
-		settings = new SettingsManager(Labyrinth.SETTINGS_FILE);
+		this.settings = settings;
 		
 		// Set up UI's
 		gameUI = new GameView(new TreasureChase(settings));
@@ -1,6 +1,7 @@
 package com.labyrinth.ui.interfaces;
 
 import com.labyrinth.Labyrinth;
+import com.labyrinth.game.Difficulty;
 import com.labyrinth.game.SettingsManager;
 import com.labyrinth.ui.CharacterElements;
 
@@ -32,6 +33,10 @@ public class OptionsUI extends UserInterface {
 	 * 		ROWS <no>
 	 * 		COLUMNS <no>
 	 * 		LEADERBOARD <path>
+	 * 		DIFFICULTY <easy/normal/hard/insane>
+	 * 		SEED <no/random>
+	 * 		TILES <corner>,<line>,<tshape>,<cross>
+	 * 		SOLVABLE <no/any>
 	 * 
 	 * The command 'apply' saves the changes.
 	 */
@@ -77,6 +82,51 @@ public class OptionsUI extends UserInterface {
 				throw new IllegalArgumentException("Usage: leaderboard <path>");
 			
 			settings.setLeaderboard(args[1]);
+		} else if(args[0].toLowerCase().equals("difficulty")) {
+			if(args.length != 2)
+				throw new IllegalArgumentException("Usage: difficulty <easy/normal/hard/insane>");
+			
+			// Alter difficulty, the message already says what is allowed
+			settings.setDifficulty(Difficulty.convertFromString(args[1]));
+		} else if(args[0].toLowerCase().equals("seed")) {
+			if(args.length != 2)
+				throw new IllegalArgumentException("Usage: seed <no/random>");
+			
+			// Alter seed, random for different games every time
+			if(args[1].toLowerCase().equals("random")) {
+				settings.clearSeed();
+			} else {
+				try {
+					settings.setSeed(Long.parseLong(args[1]));
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Please enter a whole number or random.");
+				}
+			}
+		} else if(args[0].toLowerCase().equals("tiles")) {
+			if(args.length != 2)
+				throw new IllegalArgumentException("Usage: tiles <corner>,<line>,<tshape>,<cross>");
+			
+			// Alter the weights of the movable tiles
+			try {
+				settings.setTileWeights(SettingsManager.parseWeights(args[1]));
+			} catch(IllegalArgumentException e) {
+				throw new IllegalArgumentException("Please enter four whole numbers, e.g. 1,1,1,1, at least one above 0.");
+			}
+		} else if(args[0].toLowerCase().equals("solvable")) {
+			if(args.length != 2)
+				throw new IllegalArgumentException("Usage: solvable <no/any>");
+			
+			// Alter the rounds new games must be solvable in, 0 or any for unchecked games
+			if(args[1].toLowerCase().equals("any")) {
+				settings.setSolvableRounds(0);
+			} else {
+				try {
+					settings.setSolvableRounds(Integer.parseInt(args[1]));
+				} catch(IllegalArgumentException e) {
+					throw new IllegalArgumentException("Please enter a valid integer between 0 and "
+							+ SettingsManager.MAX_SOLVABLE_ROUNDS + " (inclusive), or any (0 and any both mean unchecked).");
+				}
+			}
 		} else if(args[0].toLowerCase().equals("apply")) {
 			System.out.print("Applying settings to " + Labyrinth.SETTINGS_FILE + "... ");
 			
@@ -113,6 +163,10 @@ public class OptionsUI extends UserInterface {
 		addContent("    * ROWS         " + settings.getRows());
 		addContent("    * COLUMNS      " + settings.getColumns());
 		addContent("    * LEADERBOARD  " + settings.getLeaderboard());
+		addContent("    * DIFFICULTY   " + settings.getDifficulty() + " (easy/normal/hard/insane)");
+		addContent("    * SEED         " + (settings.isSeeded() ? Long.toString(settings.getSeed()) : "random"));
+		addContent("    * TILES        " + formatWeights(settings.getTileWeights()) + " (corner,line,tshape,cross)");
+		addContent("    * SOLVABLE     " + (settings.getSolvableRounds() > 0 ? settings.getSolvableRounds() + " rounds" : "any"));
 		
 		addContent("");
 		addContent("DETAILS");
@@ -124,5 +178,12 @@ public class OptionsUI extends UserInterface {
 		addContent("------------------------------------------------------------------------");
 		addContent("Enter 'back' to go back                   Enter 'apply' to apply changes");
 	}
+	
+	/**
+	 * Format tile weights as they are entered, e.g. 1,1,1,1.
+	 */
+	private static String formatWeights(int[] weights) {
+		return weights[0] + "," + weights[1] + "," + weights[2] + "," + weights[3];
+	}
 
 }